@@ -0,0 +1,32 @@
+package weatherapi.cache;
+
+import weatherapi.model.WeatherReport;
+
+/**
+ * Immutable weather report held by {@link WeatherReportCache}.
+ */
+public final class CachedWeatherReport {
+
+    private final String description;
+    private final long timestamp;
+
+    public CachedWeatherReport(String description, long timestamp) {
+        this.description = description;
+        this.timestamp = timestamp;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public WeatherReport toWeatherReport() {
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription(description);
+        weatherReport.setTimestamp(timestamp);
+        return weatherReport;
+    }
+}
@@ -0,0 +1,89 @@
+package weatherapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+/**
+ * Bounded in-process cache of weather reports keyed by the normalised city name and country code.
+ * Each entry expires one hour plus the stale grace period after the timestamp of its report, and the size limit
+ * is enforced with Caffeine's Window TinyLFU eviction policy.
+ */
+@Component
+public class WeatherReportCache {
+
+    @Value("${weather.report.cache.max-size:10000}")
+    private long maximumSize;
+    @Value("${weather.report.stale-grace-period:0}")
+    private long staleGracePeriod;
+
+    private Cache<String, CachedWeatherReport> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfter(new ReportTimestampExpiry(staleGracePeriod))
+                        .build();
+    }
+
+    /**
+     * Gets a cached weather report which has not expired, or which has expired within the stale grace period.
+     * @param city
+     * @param countryCode
+     * @return The cached weather report, or an empty Optional when there is none.
+     */
+    public Optional<CachedWeatherReport> get(String city, String countryCode) {
+        return Optional.ofNullable(cache.getIfPresent(buildKey(city, countryCode)));
+    }
+
+    public void put(String city, String countryCode, String description, long timestamp) {
+        cache.put(buildKey(city, countryCode), new CachedWeatherReport(description, timestamp));
+    }
+
+    public void invalidate(String city, String countryCode) {
+        cache.invalidate(buildKey(city, countryCode));
+    }
+
+    public static String buildKey(String city, String countryCode) {
+        return city.trim().toLowerCase(Locale.ROOT) + "," + countryCode.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Expires an entry when its report becomes older than one hour plus the stale grace period,
+     * rather than a fixed time after it was cached.
+     */
+    private static class ReportTimestampExpiry implements Expiry<String, CachedWeatherReport> {
+
+        private final long staleGracePeriod;
+
+        private ReportTimestampExpiry(long staleGracePeriod) {
+            this.staleGracePeriod = staleGracePeriod;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, CachedWeatherReport value, long currentTime) {
+            long remaining = value.getTimestamp() + ONE_HOUR + staleGracePeriod - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedWeatherReport value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedWeatherReport value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package weatherapi.config;
 
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebConfig {
@@ -13,12 +20,62 @@ public class WebConfig {
     @Value("${openweathermap.url}")
     private String weatherUrl;
 
+    @Value("${openweathermap.pool.max-connections:200}")
+    private int maxConnections;
+    @Value("${openweathermap.pool.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+    @Value("${openweathermap.pool.pending-acquire-timeout:5000}")
+    private long pendingAcquireTimeout;
+    @Value("${openweathermap.pool.max-idle-time:30000}")
+    private long maxIdleTime;
+    @Value("${openweathermap.pool.max-life-time:300000}")
+    private long maxLifeTime;
+    @Value("${openweathermap.pool.evict-in-background:60000}")
+    private long evictInBackground;
+    @Value("${openweathermap.pool.metrics-enabled:true}")
+    private boolean poolMetricsEnabled;
+
+    @Value("${openweathermap.connect-timeout:2000}")
+    private int connectTimeout;
+    @Value("${openweathermap.response-timeout:5000}")
+    private long responseTimeout;
+    @Value("${openweathermap.http2-enabled:false}")
+    private boolean http2Enabled;
+
+    /**
+     * The pool of connections to the Open Weather Service. When metrics are enabled, the active, idle and pending
+     * connections and the time spent waiting for a connection are published as reactor.netty.connection.provider.*
+     * metrics tagged with name=openweathermap.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider openWeatherConnectionProvider() {
+        return ConnectionProvider.builder("openweathermap")
+                                 .maxConnections(maxConnections)
+                                 .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                                 .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+                                 .maxIdleTime(Duration.ofMillis(maxIdleTime))
+                                 .maxLifeTime(Duration.ofMillis(maxLifeTime))
+                                 .evictInBackground(Duration.ofMillis(evictInBackground))
+                                 .metrics(poolMetricsEnabled)
+                                 .build();
+    }
+
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(ConnectionProvider openWeatherConnectionProvider) {
+
+        HttpClient httpClient = HttpClient.create(openWeatherConnectionProvider)
+                                          .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                                          .option(ChannelOption.SO_KEEPALIVE, true)
+                                          .keepAlive(true)
+                                          .responseTimeout(Duration.ofMillis(responseTimeout));
+        if (http2Enabled) {
+            // HTTP/2 is negotiated over TLS, HTTP/1.1 is used when the server does not support it
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
 
         WebClient webClient = WebClient.builder()
                                        .baseUrl(weatherUrl)
-                                       .defaultCookie("cookie-name", "cookie-value")
+                                       .clientConnector(new ReactorClientHttpConnector(httpClient))
                                        .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                                        .build();
         return webClient;
@@ -0,0 +1,47 @@
+package weatherapi.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.exception.WeatherApiInvalidQueryException;
+import weatherapi.model.ApiKey;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static weatherapi.exception.WeatherApiError.ERROR_INVALID_API_KEY_COUNT;
+
+@RestController
+@ConditionalOnProperty(name = "weather.api-key.admin.enabled", havingValue = "true")
+public class ApiKeyAdminController {
+
+    @Autowired
+    private ApiKeyDetailService apiKeyDetailService;
+
+    @Value("${weather.api-key.provisioning.max-count:10000}")
+    private int apiKeyMaxCount;
+
+    /**
+     * Generates API keys of any tier, including the paid tiers which /weather/apikeys does not issue.
+     * @param count
+     * @param tier
+     * @return The API keys.
+     * @throws WeatherApiException
+     */
+    @PostMapping("/admin/apikeys")
+    public List<ApiKey> createApiKeys(@RequestParam(value = "count", required = true) int count,
+                                      @RequestParam(value = "tier", required = true) ApiKeyTier tier) throws WeatherApiException {
+        if (count < 1 || count > apiKeyMaxCount) {
+            throw new WeatherApiInvalidQueryException(ERROR_INVALID_API_KEY_COUNT);
+        }
+        return apiKeyDetailService.provision(count, tier).stream()
+                                  .map(ApiKey::new)
+                                  .collect(toList());
+    }
+}
@@ -0,0 +1,25 @@
+package weatherapi.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import weatherapi.model.CountryReloadResult;
+import weatherapi.service.CountryService;
+
+@RestController
+@ConditionalOnProperty(name = "weather.country.admin.enabled", havingValue = "true")
+public class CountryAdminController {
+
+    @Autowired
+    private CountryService countryService;
+
+    /**
+     * Reloads the countries without restarting the application. The current countries are kept if the reload fails.
+     * @return The number of country names, ISO codes and aliases which can be looked up after the reload.
+     */
+    @PostMapping("/admin/countries/reload")
+    public CountryReloadResult reloadCountries() {
+        return new CountryReloadResult(countryService.reload());
+    }
+}
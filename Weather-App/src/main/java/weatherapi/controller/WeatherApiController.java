@@ -1,41 +1,64 @@
 package weatherapi.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import weatherapi.entity.ApiKeyDetail;
-import weatherapi.entity.WeatherReportDetail;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import weatherapi.cache.WeatherReportCache;
 import weatherapi.exception.WeatherApiCountryNameNotFoundException;
 import weatherapi.exception.WeatherApiException;
 import weatherapi.exception.WeatherApiInvalidQueryException;
 import weatherapi.exception.WeatherApiMissingApiKeyException;
-import weatherapi.factory.OpenWeatherServiceFactory;
-import weatherapi.factory.WeatherReportFactory;
+import weatherapi.metrics.WeatherReportMetrics;
+import weatherapi.metrics.WeatherReportMetrics.Stage;
 import weatherapi.model.ApiKey;
 import weatherapi.model.WeatherReport;
+import weatherapi.model.WeatherReportBatchItem;
+import weatherapi.quota.ApiKeyQuotaService;
+import weatherapi.security.ApiKeyBloomFilter;
+import weatherapi.security.ApiKeySigner;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.security.SignedApiKey;
 import weatherapi.service.ApiKeyDetailService;
 import weatherapi.service.CountryService;
-import weatherapi.service.WeatherReportDaoService;
-import weatherapi.utility.Utils;
+import weatherapi.service.WeatherReportService;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.stream.Collectors.toList;
 import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
 import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_REACHED_LIMIT;
+import static weatherapi.exception.WeatherApiError.ERROR_CITY_NAME_NOT_FOUND;
 import static weatherapi.exception.WeatherApiError.ERROR_COUNTRY_NAME_NOT_FOUND;
+import static weatherapi.exception.WeatherApiError.ERROR_INVALID_API_KEY_COUNT;
 import static weatherapi.exception.WeatherApiError.ERROR_INVALID_QUERY;
 import static weatherapi.exception.WeatherApiError.ERROR_MISSING_API_KEY;
 import static weatherapi.exception.WeatherApiError.ERROR_MISSING_CITY_OR_COUNTRY_NAME;
-import static weatherapi.utility.Utils.resetTimestampAndCallCount;
-import static weatherapi.utility.Utils.validateApiKey;
-import static weatherapi.utility.Utils.hasWeatherReportTimestampExpired;
+import static weatherapi.exception.WeatherApiError.ERROR_TOO_MANY_QUERIES;
+import static weatherapi.utility.Utils.ONE_HOUR;
 
 @RestController
 public class WeatherApiController {
@@ -43,70 +66,176 @@ public class WeatherApiController {
     @Autowired
     private CountryService countryService;
     @Autowired
-    private OpenWeatherServiceFactory openWeatherServiceFactory;
-    @Autowired
     private ApiKeyDetailService apiKeyDetailService;
+    @Autowired
+    private ApiKeyQuotaService apiKeyQuotaService;
+    @Autowired
+    private ApiKeySigner apiKeySigner;
+    @Autowired
+    private ApiKeyBloomFilter apiKeyBloomFilter;
+    @Autowired
+    private WeatherReportMetrics weatherReportMetrics;
+
+    /**
+     * Gets the weather report of a "city,country" query. The response can be cached until the weather report
+     * expires: it has an ETag and a Last-Modified header, and a Cache-Control max-age of the remaining time to live.
+     * A request whose If-None-Match or If-Modified-Since header matches the weather report gets a 304 without a body,
+     * which is only charged to the API key if weather.report.conditional.charge-not-modified is true.
+     */
     @GetMapping("/weather/report")
-    public WeatherReport getWeatherReport(@RequestParam(value = "q", required = true) String query,
-                                          @RequestParam(value = "apiKey", required = true) String apiKeyAsString) throws WeatherApiException {
+    public ResponseEntity<WeatherReport> getWeatherReport(@RequestParam(value = "q", required = true) String query,
+                                                          @RequestParam(value = "apiKey", required = true) String apiKeyAsString,
+                                                          WebRequest webRequest) throws WeatherApiException {
+
+        WeatherReportRequest request = validateRequest(query, apiKeyAsString);
+        WeatherReport weatherReport;
+        try {
+            weatherReport = weatherReportService.getWeatherReport(request.city, request.country, request.countryCode);
+        } catch (RuntimeException ex) {
+            apiKeyQuotaService.release(request.apiKey, 1); // Only the weather reports which are returned are charged
+            throw ex;
+        }
+        long lastModified = weatherReport.getTimestamp();
+        String eTag = buildETag(weatherReport);
+        CacheControl cacheControl = buildCacheControl(lastModified);
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            if (!chargeNotModified) {
+                apiKeyQuotaService.release(request.apiKey, 1);
+            }
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                             .cacheControl(cacheControl)
+                             .eTag(eTag)
+                             .lastModified(lastModified)
+                             .body(weatherReport);
+    }
+
+    /**
+     * Non-blocking variant of /weather/report. The servlet thread is released as soon as the request is validated,
+     * the Open Weather Service is called with the non-blocking web client and the database is accessed on the
+     * bounded elastic scheduler.
+     */
+    @GetMapping("/weather/report/reactive")
+    public Mono<WeatherReport> getWeatherReportReactive(@RequestParam(value = "q", required = true) String query,
+                                                        @RequestParam(value = "apiKey", required = true) String apiKeyAsString) {
+
+        return Mono.fromCallable(() -> validateRequest(query, apiKeyAsString))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .flatMap(request -> weatherReportService.getWeatherReportAsync(request.city, request.country, request.countryCode)
+                                                           .onErrorResume(ex -> Mono.fromRunnable(() -> apiKeyQuotaService.release(request.apiKey, 1))
+                                                                                    .subscribeOn(Schedulers.boundedElastic())
+                                                                                    .then(Mono.error(ex))));
+    }
+
+    /**
+     * Gets the weather reports of many "city,country" queries with one API key. The queries are validated first,
+     * and duplicate queries share one weather report, so that the API key is charged once per distinct city in a
+     * single quota update. The calls of the weather reports which could not be fetched are given back once, when
+     * the request completes, fails or is cancelled. Cached reports are served directly and the others are fetched
+     * from the Open Weather Service in parallel. A query which fails gets an error in its own item instead of
+     * failing the whole request.
+     * @param queries
+     * @param apiKeyAsString
+     * @return One item per query, in the same order as the queries.
+     */
+    @PostMapping("/weather/reports")
+    public Mono<List<WeatherReportBatchItem>> getWeatherReports(@RequestBody(required = false) List<String> queries,
+                                                                @RequestParam(value = "apiKey", required = true) String apiKeyAsString) {
+
+        return Mono.usingWhen(Mono.fromCallable(() -> {
+                                      validateBatchRequest(queries, apiKeyAsString);
+                                      return buildBatch(queries, apiKeyAsString);
+                                  })
+                                  .subscribeOn(Schedulers.boundedElastic()),
+                              batch -> Flux.fromIterable(batch.entries)
+                                           .flatMapSequential(entry -> getWeatherReportBatchItem(batch, entry), batchConcurrency)
+                                           .collectList(),
+                              this::settleBatch,
+                              (batch, ex) -> settleBatch(batch),
+                              this::settleBatch);
+    }
+
+    /**
+     * Gives back the calls of the weather reports of a batch which failed or were cancelled, in one quota write.
+     */
+    private Mono<Void> settleBatch(WeatherReportBatch batch) {
+        int unserved = batch.acquired - batch.served.get();
+        if (unserved == 0) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> apiKeyQuotaService.release(batch.apiKey, unserved))
+                   .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Autowired
+    private WeatherReportService weatherReportService;
+
+    @Value("${weather.report.batch.max-size:200}")
+    private int batchMaxSize;
+    @Value("${weather.report.batch.concurrency:16}")
+    private int batchConcurrency;
+
+    @Value("${weather.api-key.provisioning.max-count:10000}")
+    private int apiKeyMaxCount;
+
+    @Value("${weather.report.conditional.charge-not-modified:true}")
+    private boolean chargeNotModified;
+
+    /**
+     * Generates 5 API keys.
+     * @return A list of 5 API keys.
+     */
+    @GetMapping("/weather/apikeys")
+    public List<ApiKey> getApiKeys() {
+        return provisionApiKeys(5);
+    }
+
+    /**
+     * Generates up to weather.api-key.provisioning.max-count API keys in one request. They are saved with
+     * JDBC batch inserts in one transaction.
+     * @param count
+     * @return The API keys.
+     * @throws WeatherApiException
+     */
+    @PostMapping("/weather/apikeys")
+    public List<ApiKey> createApiKeys(@RequestParam(value = "count", required = true) int count) throws WeatherApiException {
+        if (count < 1 || count > apiKeyMaxCount) {
+            throw new WeatherApiInvalidQueryException(ERROR_INVALID_API_KEY_COUNT);
+        }
+        return provisionApiKeys(count);
+    }
+
+    private List<ApiKey> provisionApiKeys(int count) {
+        return apiKeyDetailService.provision(count, ApiKeyTier.FREE).stream()
+                                  .map(ApiKey::new)
+                                  .collect(toList());
+    }
+
+    /**
+     * Validates the query and the API key of a weather report request.
+     * @param query
+     * @param apiKeyAsString
+     * @return The API key, city, country and country code of the request.
+     * @throws WeatherApiException
+     */
+    private WeatherReportRequest validateRequest(String query, String apiKeyAsString) throws WeatherApiException {
 
         if (StringUtils.hasText(query) && StringUtils.hasText(apiKeyAsString)) {
 
             StringTokenizer stringTokenizer = new StringTokenizer(query, ",");
             if (stringTokenizer.countTokens() == 2) {
-                Optional<ApiKeyDetail> result = apiKeyDetailService.findByApiKey(apiKeyAsString);
-                if(result.isPresent()) {
-                    ApiKeyDetail apiKeyDetail = result.get();
-                    apiKeyDetail = resetTimestampAndCallCount(apiKeyDetail);
-
-                    if (validateApiKey(apiKeyDetail)) {
-                        String city = stringTokenizer.nextToken().trim();
-                        String country = stringTokenizer.nextToken().trim();
-                        Optional<String> countryCode = countryService.findCountryCode(country);
-
-                        if (!countryCode.isPresent()) {
-                            throw new WeatherApiCountryNameNotFoundException(ERROR_COUNTRY_NAME_NOT_FOUND);
-                        }
-                        // Get weather report from the H2 database
-                        List<WeatherReportDetail> weatherReportList = weatherReportDaoService.findByCityAndCountry(city, country);
-                        WeatherReport weatherReport;
-
-                        // If somehow there are more than one weather reports for the same city and country,
-                        // delete them all and then call Open Weather Service to get a new weather report.
-                        // After that save it to the H2 database.
-                        if (weatherReportList.size() > 1) {
-                            List<Long> ids = weatherReportList.stream().map(WeatherReportDetail::getId).collect(toList());
-                            weatherReportDaoService.deleteAllById(ids);
-                            weatherReport = WeatherReportFactory.getWeatherReport(openWeatherServiceFactory, city, countryCode.get());
-                            saveOrUpdateWeatherReport(city, country, weatherReport.getDescription());
-
-                        } else if (weatherReportList.size() == 1) { // One weather report exists in the H2 database
-                            WeatherReportDetail existingWeatherReport = weatherReportList.get(0);
-                            // If the existing weather report has not expired, return the current weather description
-                            if (!hasWeatherReportTimestampExpired(existingWeatherReport.getTimestamp())) {
-                                weatherReport = new WeatherReport();
-                                weatherReport.setDescription(existingWeatherReport.getDescription());
-                            } else { // Call the Open Weather Service to get a new weather report.
-                                weatherReport = WeatherReportFactory.getWeatherReport(openWeatherServiceFactory, city, countryCode.get());
-                                // Only update the existing report with the timestamp and description
-                                existingWeatherReport.setTimestamp(new Date().getTime());
-                                existingWeatherReport.setDescription(weatherReport.getDescription());
-                                weatherReportDaoService.saveOrUpdate(existingWeatherReport);
-                            }
-                        } else { // else no weather report exists in the H2 database
-                            weatherReport = WeatherReportFactory.getWeatherReport(openWeatherServiceFactory, city, countryCode.get());
-                            saveOrUpdateWeatherReport(city, country, weatherReport.getDescription());
-                        }
-                        apiKeyDetail.setNumberOfTimesUsed(apiKeyDetail.getNumberOfTimesUsed() + 1);
-                        apiKeyDetailService.save(apiKeyDetail);
-                        return weatherReport;
-                    } else {
-                        apiKeyDetailService.delete(apiKeyDetail.getApiKey()); // Delete the expired API key
-                        throw new WeatherApiException(ERROR_API_KEY_REACHED_LIMIT);
-                    }
-                } else {
-                    throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+                // Reserve the call before the country is looked up, so that concurrent calls cannot exceed the limit
+                acquireCalls(apiKeyAsString, checkApiKey(apiKeyAsString), 1);
+                String city = stringTokenizer.nextToken().trim();
+                String country = stringTokenizer.nextToken().trim();
+                Optional<String> countryCode = findCountryCode(country);
+
+                if (!countryCode.isPresent()) {
+                    apiKeyQuotaService.release(apiKeyAsString, 1);
+                    throw new WeatherApiCountryNameNotFoundException(ERROR_COUNTRY_NAME_NOT_FOUND);
                 }
+                return new WeatherReportRequest(apiKeyAsString, city, country, countryCode.get());
             }
             throw new WeatherApiInvalidQueryException(ERROR_MISSING_CITY_OR_COUNTRY_NAME);
         }
@@ -116,30 +245,202 @@ public class WeatherApiController {
         throw new WeatherApiMissingApiKeyException(ERROR_MISSING_API_KEY);
     }
 
-    @Autowired
-    private WeatherReportDaoService weatherReportDaoService;
+    /**
+     * Validates the number of queries of a batch weather report request and that it has an API key.
+     * @throws WeatherApiException
+     */
+    private void validateBatchRequest(List<String> queries, String apiKeyAsString) throws WeatherApiException {
+
+        if (CollectionUtils.isEmpty(queries)) {
+            throw new WeatherApiInvalidQueryException(ERROR_MISSING_CITY_OR_COUNTRY_NAME);
+        }
+        if (queries.size() > batchMaxSize) {
+            throw new WeatherApiInvalidQueryException(ERROR_TOO_MANY_QUERIES);
+        }
+        if (!StringUtils.hasText(apiKeyAsString)) {
+            throw new WeatherApiMissingApiKeyException(ERROR_MISSING_API_KEY);
+        }
+    }
 
     /**
-     * Generates 5 API keys.
-     * @return A list of 5 API keys.
+     * Checks the API key, parses the queries of a batch request, finds their country codes and then reserves one
+     * call of the API key for each distinct city and country code. Only the first distinct queries which fit within the reserved calls
+     * are admitted, the others get an error.
      */
-    @GetMapping("/weather/apikeys")
-    public List<ApiKey> getApiKeys() {
+    private WeatherReportBatch buildBatch(List<String> queries, String apiKeyAsString) throws WeatherApiException {
+
+        ApiKeyTier tier = checkApiKey(apiKeyAsString);
+        List<WeatherReportBatchEntry> entries = new ArrayList<>(queries.size());
+        Set<String> keys = new HashSet<>();
+        for (String query : queries) {
+            StringTokenizer stringTokenizer = new StringTokenizer(query == null ? "" : query, ",");
+            if (stringTokenizer.countTokens() != 2) {
+                entries.add(WeatherReportBatchEntry.failure(query, ERROR_MISSING_CITY_OR_COUNTRY_NAME));
+                continue;
+            }
+            String city = stringTokenizer.nextToken().trim();
+            String country = stringTokenizer.nextToken().trim();
+            Optional<String> countryCode = findCountryCode(country);
+            if (!countryCode.isPresent()) {
+                entries.add(WeatherReportBatchEntry.failure(query, ERROR_COUNTRY_NAME_NOT_FOUND));
+                continue;
+            }
+            entries.add(new WeatherReportBatchEntry(query, city, country, countryCode.get(), null));
+            keys.add(WeatherReportCache.buildKey(city, countryCode.get()));
+        }
+
+        int acquired = keys.isEmpty() ? 0 : acquireCalls(apiKeyAsString, tier, keys.size());
+        if (acquired < keys.size()) {
+            Set<String> admitted = new HashSet<>();
+            for (int i = 0; i < entries.size(); i++) {
+                WeatherReportBatchEntry entry = entries.get(i);
+                if (entry.error != null) {
+                    continue;
+                }
+                String key = WeatherReportCache.buildKey(entry.city, entry.countryCode);
+                if (!admitted.contains(key) && admitted.size() >= acquired) {
+                    entries.set(i, WeatherReportBatchEntry.failure(entry.query, ERROR_API_KEY_REACHED_LIMIT));
+                } else {
+                    admitted.add(key);
+                }
+            }
+        }
+        return new WeatherReportBatch(apiKeyAsString, entries, acquired);
+    }
+
+    /**
+     * Rejects forged and expired signed API keys, and unsigned API keys which are not in the Bloom filter, before the
+     * quota of the API key is read from the database.
+     * @return The verified tier of a signed API key, or null for an unsigned API key.
+     * @throws WeatherApiException
+     */
+    private ApiKeyTier checkApiKey(String apiKeyAsString) throws WeatherApiException {
+        Optional<SignedApiKey> signedApiKey = apiKeySigner.checkAcceptable(apiKeyAsString);
+        if (!apiKeyBloomFilter.mightExist(apiKeyAsString)) {
+            throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+        }
+        return signedApiKey.map(SignedApiKey::getTier).orElse(null);
+    }
+
+    /**
+     * Reserves calls of an API key which has been checked.
+     * @param tier The tier returned by checkApiKey.
+     * @return The number of calls reserved.
+     * @throws WeatherApiException
+     */
+    private int acquireCalls(String apiKeyAsString, ApiKeyTier tier, int calls) throws WeatherApiException {
+        long startTime = System.nanoTime();
+        try {
+            return apiKeyQuotaService.acquire(apiKeyAsString, tier, calls);
+        } finally {
+            weatherReportMetrics.recordStage(Stage.API_KEY, startTime);
+        }
+    }
+
+    private Optional<String> findCountryCode(String country) {
+        long startTime = System.nanoTime();
+        try {
+            return countryService.findCountryCode(country);
+        } finally {
+            weatherReportMetrics.recordStage(Stage.COUNTRY_LOOKUP, startTime);
+        }
+    }
 
-        List<ApiKey> apiKeys = new ArrayList<>();
-        for (int i=0; i < 5; i++) {
-            apiKeys.add(new ApiKey(apiKeyDetailService.save(Utils.buildApiKeyDetail())));
+    /**
+     * The same description fetched at the same time gives the same ETag, whichever instance serves it.
+     */
+    private static String buildETag(WeatherReport weatherReport) {
+        return "\"" + Long.toHexString(weatherReport.getTimestamp()) + "-"
+               + Integer.toHexString(weatherReport.getDescription().hashCode()) + "\"";
+    }
+
+    /**
+     * The weather report can be cached for the rest of its hour. An expired weather report, served while a new one
+     * is fetched, must be revalidated on every request.
+     */
+    private static CacheControl buildCacheControl(long timestamp) {
+        long remainingTime = Math.max(0, timestamp + ONE_HOUR - new Date().getTime());
+        return CacheControl.maxAge(TimeUnit.MILLISECONDS.toSeconds(remainingTime), TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * Duplicate queries of a batch subscribe to the same weather report, which is only fetched once.
+     */
+    private Mono<WeatherReportBatchItem> getWeatherReportBatchItem(WeatherReportBatch batch, WeatherReportBatchEntry entry) {
+        if (entry.error != null) {
+            return Mono.just(WeatherReportBatchItem.failure(entry.query, entry.error));
+        }
+        Mono<WeatherReport> sharedWeatherReport = batch.weatherReports.computeIfAbsent(
+                WeatherReportCache.buildKey(entry.city, entry.countryCode),
+                key -> weatherReportService.getWeatherReportAsync(entry.city, entry.country, entry.countryCode)
+                                           .doOnNext(fetched -> batch.served.incrementAndGet())
+                                           .cache());
+        return sharedWeatherReport.map(weatherReport -> WeatherReportBatchItem.success(entry.query, weatherReport.getDescription()))
+                                  .onErrorResume(ex -> Mono.just(WeatherReportBatchItem.failure(entry.query, getErrorMessage(ex))));
+    }
+
+    private static String getErrorMessage(Throwable ex) {
+        if (ex instanceof WebClientResponseException && ((WebClientResponseException) ex).getStatusCode() == HttpStatus.NOT_FOUND) {
+            return ERROR_CITY_NAME_NOT_FOUND;
+        }
+        return ex.getLocalizedMessage();
+    }
+
+    /**
+     * The queries of a batch weather report request, the calls reserved for them and the weather reports of their
+     * distinct cities, with the number of them which have been fetched.
+     */
+    private static class WeatherReportBatch {
+        private final String apiKey;
+        private final List<WeatherReportBatchEntry> entries;
+        private final int acquired;
+        private final Map<String, Mono<WeatherReport>> weatherReports = new ConcurrentHashMap<>();
+        private final AtomicInteger served = new AtomicInteger();
+
+        private WeatherReportBatch(String apiKey, List<WeatherReportBatchEntry> entries, int acquired) {
+            this.apiKey = apiKey;
+            this.entries = entries;
+            this.acquired = acquired;
         }
-        return apiKeys;
     }
 
-    private void saveOrUpdateWeatherReport(String city, String country, String description) {
-        WeatherReportDetail weatherReportDetail = new WeatherReportDetail();
-        weatherReportDetail.setTimestamp(new Date().getTime());
-        weatherReportDetail.setCity(city);
-        weatherReportDetail.setCountry(country);
-        weatherReportDetail.setDescription(description);
-        weatherReportDaoService.saveOrUpdate(weatherReportDetail);
+    /**
+     * A query of a batch weather report request, which has either been admitted or failed validation.
+     */
+    private static class WeatherReportBatchEntry {
+        private final String query;
+        private final String city;
+        private final String country;
+        private final String countryCode;
+        private final String error;
+
+        private WeatherReportBatchEntry(String query, String city, String country, String countryCode, String error) {
+            this.query = query;
+            this.city = city;
+            this.country = country;
+            this.countryCode = countryCode;
+            this.error = error;
+        }
+
+        private static WeatherReportBatchEntry failure(String query, String error) {
+            return new WeatherReportBatchEntry(query, null, null, null, error);
+        }
     }
 
+    /**
+     * A validated weather report request.
+     */
+    private static class WeatherReportRequest {
+        private final String apiKey;
+        private final String city;
+        private final String country;
+        private final String countryCode;
+
+        private WeatherReportRequest(String apiKey, String city, String country, String countryCode) {
+            this.apiKey = apiKey;
+            this.city = city;
+            this.country = country;
+            this.countryCode = countryCode;
+        }
+    }
 }
@@ -2,8 +2,11 @@ package weatherapi.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import weatherapi.security.ApiKeyTier;
 
 @Entity
 @Table(name = "api_key")
@@ -12,6 +15,7 @@ public class ApiKeyDetail {
     private Long timestamp;
     private String apiKey;
     private int numberOfTimesUsed;
+    private ApiKeyTier tier = ApiKeyTier.FREE;
 
     @Id
     @Column(name = "api_key", nullable = false)
@@ -40,4 +44,14 @@ public class ApiKeyDetail {
     public void setNumberOfTimesUsed(int numberOfTimesUsed) {
         this.numberOfTimesUsed = numberOfTimesUsed;
     }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tier", nullable = false)
+    public ApiKeyTier getTier() {
+        return tier;
+    }
+
+    public void setTier(ApiKeyTier tier) {
+        this.tier = tier;
+    }
 }
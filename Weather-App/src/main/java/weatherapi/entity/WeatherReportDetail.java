@@ -12,6 +12,8 @@ import jakarta.persistence.Table;
 public class WeatherReportDetail {
 
     private Long id;
+    private String cityKey;
+    private String countryCode;
     private String city;
     private String country;
     private String description;
@@ -28,6 +30,24 @@ public class WeatherReportDetail {
         this.id = id;
     }
 
+    @Column(name = "city_key", nullable = false)
+    public String getCityKey() {
+        return cityKey;
+    }
+
+    public void setCityKey(String cityKey) {
+        this.cityKey = cityKey;
+    }
+
+    @Column(name = "country_code", nullable = false)
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
     @Column(name = "description", nullable = false)
     public String getDescription() {
         return description;
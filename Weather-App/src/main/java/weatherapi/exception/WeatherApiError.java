@@ -9,5 +9,8 @@ public interface WeatherApiError {
     String ERROR_API_KEY_REACHED_LIMIT = "The API key has reached its limit";
     String ERROR_API_KEY_NOT_VALID = "The API key is not valid!" ;
     String ERROR_MISSING_API_KEY = "Missing API key";
+    String ERROR_TOO_MANY_QUERIES = "Too many queries in one request";
+    String ERROR_INVALID_API_KEY_COUNT = "Invalid number of API keys";
+    String ERROR_WEATHER_SERVICE_UNAVAILABLE = "The weather service is temporarily unavailable";
 
 }
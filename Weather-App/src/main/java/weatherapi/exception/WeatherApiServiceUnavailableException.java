@@ -0,0 +1,11 @@
+package weatherapi.exception;
+
+/**
+ * Thrown when the Open Weather Service is not called because its circuit breaker is open
+ * or too many calls to it are already in progress.
+ */
+public class WeatherApiServiceUnavailableException extends RuntimeException {
+    public WeatherApiServiceUnavailableException(String errorMsg, Throwable throwable) {
+        super(errorMsg, throwable);
+    }
+}
@@ -0,0 +1,78 @@
+package weatherapi.factory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import weatherapi.model.WeatherReport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Reads the weather report from an Open Weather Service response with the Jackson streaming parser.
+ * Only the fields of the weather report are read; every other value is skipped without being built
+ * and parsing stops as soon as all the fields have been found.
+ */
+public final class OpenWeatherResponseParser {
+
+    // JsonFactory is thread-safe and reuses its symbol tables and buffers between parsers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String WEATHER = "weather";
+    private static final String DESCRIPTION = "description";
+
+    private OpenWeatherResponseParser() {
+    }
+
+    /**
+     * Gets the weather report from the API response.
+     * @param response The response body as UTF-8 bytes.
+     * @return
+     */
+    public static WeatherReport parseWeatherReport(byte[] response) {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("The Open Weather Service response is not a JSON object");
+            }
+            WeatherReport weatherReport = new WeatherReport();
+            while (weatherReport.getDescription() == null && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                if (WEATHER.equals(fieldName)) {
+                    weatherReport.setDescription(readFirstWeatherDescription(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (weatherReport.getDescription() == null) {
+                throw new IllegalStateException("The Open Weather Service response has no weather description");
+            }
+            return weatherReport;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the description of the first element of the weather array. The rest of the array is not read.
+     */
+    private static String readFirstWeatherDescription(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        String description = null;
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                if (description == null && DESCRIPTION.equals(fieldName)) {
+                    description = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return description;
+    }
+}
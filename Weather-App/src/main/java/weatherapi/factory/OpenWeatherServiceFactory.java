@@ -1,11 +1,12 @@
 package weatherapi.factory;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import weatherapi.metrics.WeatherReportMetrics;
+import weatherapi.metrics.WeatherReportMetrics.Stage;
 import weatherapi.model.WeatherReport;
 
 @Service
@@ -13,6 +14,8 @@ public class OpenWeatherServiceFactory implements WeatherReportAbstractFactory {
 
     @Autowired
     private WebClient webClient;
+    @Autowired
+    private WeatherReportMetrics weatherReportMetrics;
 
     @Value("${app.id}")
     private String appId;
@@ -20,28 +23,39 @@ public class OpenWeatherServiceFactory implements WeatherReportAbstractFactory {
     @Override
     public WeatherReport getWeatherReport(String cityName, String countryCode) {
 
-        String response = webClient.get()
-                                   .uri("?q=" + cityName + "," + countryCode + "&appid=" + appId)
-                                   .retrieve().bodyToMono(String.class).block();
-
-        WeatherReport weatherReport = getWeatherReport(response);
+        long startTime = System.nanoTime();
+        byte[] response;
+        try {
+            response = webClient.get()
+                                .uri("?q=" + cityName + "," + countryCode + "&appid=" + appId)
+                                .retrieve().bodyToMono(byte[].class).block();
+        } finally {
+            weatherReportMetrics.recordStage(Stage.UPSTREAM, startTime);
+        }
+
+        WeatherReport weatherReport = parseWeatherReport(response);
         return weatherReport;
 
     }
 
-    /**
-     * Gets the weather description from the API response using JsonParser class.
-     * @param response
-     * @return
-     */
-    private WeatherReport getWeatherReport(String response) {
-        JsonParser parser = new JsonParser();
-        JsonElement jsonElement = parser.parse(response);
-        JsonElement weatherElement = jsonElement.getAsJsonObject().get("weather");
-        JsonElement descParser = weatherElement.getAsJsonArray().get(0);
-        String description = descParser.getAsJsonObject().get("description").toString().replace("\"", "");
-        WeatherReport weatherReport = new WeatherReport();
-        weatherReport.setDescription(description);
-        return weatherReport;
+    @Override
+    public Mono<WeatherReport> getWeatherReportAsync(String cityName, String countryCode) {
+
+        return Mono.defer(() -> {
+            long startTime = System.nanoTime();
+            return webClient.get()
+                            .uri("?q=" + cityName + "," + countryCode + "&appid=" + appId)
+                            .retrieve().bodyToMono(byte[].class)
+                            .doOnTerminate(() -> weatherReportMetrics.recordStage(Stage.UPSTREAM, startTime));
+        }).map(this::parseWeatherReport);
+    }
+
+    private WeatherReport parseWeatherReport(byte[] response) {
+        long startTime = System.nanoTime();
+        try {
+            return OpenWeatherResponseParser.parseWeatherReport(response);
+        } finally {
+            weatherReportMetrics.recordStage(Stage.PARSE, startTime);
+        }
     }
 }
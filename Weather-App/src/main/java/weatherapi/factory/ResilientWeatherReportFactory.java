@@ -0,0 +1,130 @@
+package weatherapi.factory;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import weatherapi.exception.WeatherApiServiceUnavailableException;
+import weatherapi.model.WeatherReport;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static weatherapi.exception.WeatherApiError.ERROR_WEATHER_SERVICE_UNAVAILABLE;
+
+/**
+ * Calls the Open Weather Service through a circuit breaker and a bulkhead which limits the concurrent calls.
+ * While the circuit breaker is open or the bulkhead is full, calls fail immediately with
+ * {@link WeatherApiServiceUnavailableException} instead of waiting for the Open Weather Service.
+ * The circuit breaker state and the bulkhead usage are published as resilience4j.* metrics
+ * and every state transition is logged.
+ */
+@Primary
+@Service
+public class ResilientWeatherReportFactory implements WeatherReportAbstractFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResilientWeatherReportFactory.class);
+    private static final String NAME = "openweathermap";
+
+    @Autowired
+    private OpenWeatherServiceFactory openWeatherServiceFactory;
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${openweathermap.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+    @Value("${openweathermap.circuit-breaker.slow-call-rate-threshold:50}")
+    private float slowCallRateThreshold;
+    @Value("${openweathermap.circuit-breaker.slow-call-duration-threshold:2000}")
+    private long slowCallDurationThreshold;
+    @Value("${openweathermap.circuit-breaker.sliding-window-size:50}")
+    private int slidingWindowSize;
+    @Value("${openweathermap.circuit-breaker.minimum-number-of-calls:20}")
+    private int minimumNumberOfCalls;
+    @Value("${openweathermap.circuit-breaker.wait-duration-in-open-state:30000}")
+    private long waitDurationInOpenState;
+    @Value("${openweathermap.circuit-breaker.permitted-calls-in-half-open-state:5}")
+    private int permittedCallsInHalfOpenState;
+    @Value("${openweathermap.bulkhead.max-concurrent-calls:100}")
+    private int maxConcurrentCalls;
+    @Value("${openweathermap.bulkhead.max-wait-duration:0}")
+    private long maxWaitDuration;
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+
+    @PostConstruct
+    public void init() {
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationThreshold))
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitDurationInOpenState))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                // An unknown city is an answer from a healthy Open Weather Service, not a failure
+                .recordException(ex -> !(ex instanceof WebClientResponseException
+                        && ((WebClientResponseException) ex).getStatusCode().is4xxClientError()))
+                .build();
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(circuitBreakerConfig);
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        circuitBreaker.getEventPublisher()
+                      .onStateTransition(event -> LOGGER.warn("Open Weather Service circuit breaker: {}",
+                                                              event.getStateTransition()));
+
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                                                                             .maxConcurrentCalls(maxConcurrentCalls)
+                                                                             .maxWaitDuration(Duration.ofMillis(maxWaitDuration))
+                                                                             .build());
+        bulkhead = bulkheadRegistry.bulkhead(NAME);
+
+        meterRegistry.ifAvailable(registry -> {
+            TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(registry);
+            TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(registry);
+        });
+    }
+
+    @Override
+    public WeatherReport getWeatherReport(String cityName, String countryCode) {
+        Supplier<WeatherReport> supplier = CircuitBreaker.decorateSupplier(circuitBreaker,
+                () -> openWeatherServiceFactory.getWeatherReport(cityName, countryCode));
+        try {
+            return Bulkhead.decorateSupplier(bulkhead, supplier).get();
+        } catch (CallNotPermittedException | BulkheadFullException ex) {
+            throw new WeatherApiServiceUnavailableException(ERROR_WEATHER_SERVICE_UNAVAILABLE, ex);
+        }
+    }
+
+    @Override
+    public Mono<WeatherReport> getWeatherReportAsync(String cityName, String countryCode) {
+        return Mono.defer(() -> openWeatherServiceFactory.getWeatherReportAsync(cityName, countryCode))
+                   .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                   .transformDeferred(BulkheadOperator.of(bulkhead))
+                   .onErrorMap(ex -> ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException,
+                               ex -> new WeatherApiServiceUnavailableException(ERROR_WEATHER_SERVICE_UNAVAILABLE, ex));
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
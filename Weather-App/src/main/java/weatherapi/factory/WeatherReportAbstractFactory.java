@@ -1,8 +1,17 @@
 package weatherapi.factory;
 
+import reactor.core.publisher.Mono;
 import weatherapi.model.WeatherReport;
 
 public interface WeatherReportAbstractFactory {
 
     WeatherReport getWeatherReport(String cityName, String countryCode);
+
+    /**
+     * Gets the weather report without blocking the calling thread.
+     * @param cityName
+     * @param countryCode
+     * @return A Mono which emits the weather report.
+     */
+    Mono<WeatherReport> getWeatherReportAsync(String cityName, String countryCode);
 }
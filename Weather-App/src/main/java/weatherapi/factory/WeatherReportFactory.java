@@ -1,5 +1,6 @@
 package weatherapi.factory;
 
+import reactor.core.publisher.Mono;
 import weatherapi.model.WeatherReport;
 
 public class WeatherReportFactory {
@@ -7,4 +8,8 @@ public class WeatherReportFactory {
     public static WeatherReport getWeatherReport(WeatherReportAbstractFactory weatherReportFactory, String cityName, String countryCode) {
         return weatherReportFactory.getWeatherReport(cityName, countryCode);
     }
+
+    public static Mono<WeatherReport> getWeatherReportAsync(WeatherReportAbstractFactory weatherReportFactory, String cityName, String countryCode) {
+        return weatherReportFactory.getWeatherReportAsync(cityName, countryCode);
+    }
 }
@@ -0,0 +1,110 @@
+package weatherapi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each stage of the weather report pipeline as weather.report.stage, counts the in-memory cache outcomes as
+ * weather.report.cache and the errors returned to the clients as weather.api.errors. The timers and cache counters
+ * are registered once, so that recording a stage is one clock read and one timer update.
+ * <p>
+ * The percentile histogram buckets of the timers are configured with management.metrics.distribution.* and are
+ * published on /actuator/prometheus.
+ */
+@Component
+public class WeatherReportMetrics {
+
+    /**
+     * The stages of a weather report request.
+     */
+    public enum Stage {
+        // Signature, Bloom filter and quota checks of the API key
+        API_KEY("api_key"),
+        COUNTRY_LOOKUP("country_lookup"),
+        DB_LOOKUP("db_lookup"),
+        // Call to the Open Weather Service, until its response body is received
+        UPSTREAM("upstream"),
+        PARSE("parse"),
+        PERSIST("persist");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * The outcomes of an in-memory cache lookup. A stale weather report has expired but is served within the stale
+     * grace period while a new one is fetched in the background.
+     */
+    public enum CacheOutcome {
+        HIT("hit"),
+        STALE("stale"),
+        MISS("miss");
+
+        private final String tag;
+
+        CacheOutcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<CacheOutcome, Counter> cacheCounters = new EnumMap<>(CacheOutcome.class);
+
+    @PostConstruct
+    public void init() {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("weather.report.stage")
+                                        .description("Time taken by one stage of a weather report request")
+                                        .tag("stage", stage.tag)
+                                        .register(meterRegistry));
+        }
+        for (CacheOutcome outcome : CacheOutcome.values()) {
+            cacheCounters.put(outcome, Counter.builder("weather.report.cache")
+                                              .description("In-memory weather report cache lookups")
+                                              .tag("outcome", outcome.tag)
+                                              .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Records the time taken by a stage.
+     * @param stage
+     * @param startTime The value of System.nanoTime() when the stage started.
+     */
+    public void recordStage(Stage stage, long startTime) {
+        stageTimers.get(stage).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCacheOutcome(CacheOutcome outcome) {
+        cacheCounters.get(outcome).increment();
+    }
+
+    /**
+     * Counts an error returned to a client by its exception type and HTTP status.
+     * @param ex
+     * @param status
+     */
+    public void recordError(Exception ex, HttpStatusCode status) {
+        Counter.builder("weather.api.errors")
+               .description("Errors returned to the clients")
+               .tag("exception", ex.getClass().getSimpleName())
+               .tag("status", String.valueOf(status.value()))
+               .register(meterRegistry)
+               .increment();
+    }
+}
@@ -2,6 +2,7 @@ package weatherapi.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeyTier;
 
 public class ApiKey {
 
@@ -19,4 +20,8 @@ public class ApiKey {
     public Long getTimestamp() {
         return apiKeyDetail.getTimestamp();
     }
+    @JsonProperty("tier")
+    public ApiKeyTier getTier() {
+        return apiKeyDetail.getTier();
+    }
 }
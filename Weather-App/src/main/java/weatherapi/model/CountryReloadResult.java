@@ -0,0 +1,23 @@
+package weatherapi.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The result of a reload of the countries.
+ */
+public class CountryReloadResult {
+
+    private final int entries;
+
+    public CountryReloadResult(int entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return The number of country names, ISO codes and aliases which can be looked up.
+     */
+    @JsonProperty("entries")
+    public int getEntries() {
+        return entries;
+    }
+}
@@ -1,10 +1,13 @@
 package weatherapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class WeatherReport {
 
     private String description;
+    // When the weather report was fetched from the Open Weather Service, in milliseconds since the epoch
+    private Long timestamp;
 
     @JsonProperty("description")
     public String getDescription() {
@@ -14,4 +17,13 @@ public class WeatherReport {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    @JsonIgnore
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
 }
@@ -0,0 +1,56 @@
+package weatherapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The result of one query of a batch weather report request. Either the description or the error is set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WeatherReportBatchItem {
+
+    private String query;
+    private String description;
+    private String error;
+
+    public static WeatherReportBatchItem success(String query, String description) {
+        WeatherReportBatchItem item = new WeatherReportBatchItem();
+        item.setQuery(query);
+        item.setDescription(description);
+        return item;
+    }
+
+    public static WeatherReportBatchItem failure(String query, String error) {
+        WeatherReportBatchItem item = new WeatherReportBatchItem();
+        item.setQuery(query);
+        item.setError(error);
+        return item;
+    }
+
+    @JsonProperty("query")
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    @JsonProperty("description")
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    @JsonProperty("error")
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
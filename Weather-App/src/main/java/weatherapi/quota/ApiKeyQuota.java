@@ -0,0 +1,95 @@
+package weatherapi.quota;
+
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeyTier;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The usage of one API key. The usage is a single long interpreted by the quota policy of the API key's tier, so
+ * that a call is checked and counted with a single compare-and-set. The usage and the deleted flag are plain
+ * volatile fields updated through var handles, rather than atomic wrappers, to keep each API key small.
+ */
+final class ApiKeyQuota {
+
+    static final int NO_CALLS_LEFT = QuotaPolicy.NO_CALLS_LEFT;
+
+    private static final VarHandle STATE;
+    private static final VarHandle DELETED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATE = lookup.findVarHandle(ApiKeyQuota.class, "state", long.class);
+            DELETED = lookup.findVarHandle(ApiKeyQuota.class, "deleted", boolean.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final ApiKeyTier tier;
+    private final QuotaPolicy policy;
+    private volatile long state;
+    private volatile boolean deleted;
+
+    ApiKeyQuota(ApiKeyTier tier, QuotaPolicy policy, long timestamp, int numberOfTimesUsed) {
+        this.tier = tier;
+        this.policy = policy;
+        this.state = policy.initialState(timestamp, numberOfTimesUsed);
+    }
+
+    /**
+     * Reserves up to the wanted calls.
+     * @return The number of calls reserved, or {@link #NO_CALLS_LEFT}.
+     */
+    int tryAcquire(int calls, long now) {
+        while (true) {
+            long current = state;
+            int acquired = policy.available(current, calls, now);
+            if (acquired == NO_CALLS_LEFT) {
+                return NO_CALLS_LEFT;
+            }
+            long next = policy.acquire(current, acquired, now);
+            if (next == current || STATE.compareAndSet(this, current, next)) {
+                return acquired;
+            }
+        }
+    }
+
+    /**
+     * Marks the API key as deleted. The quota is kept so that a call which read the API key from the database
+     * before it was deleted cannot start counting it again.
+     * @return True for the first call only.
+     */
+    boolean markDeleted() {
+        return DELETED.compareAndSet(this, false, true);
+    }
+
+    boolean isDeleted() {
+        return deleted;
+    }
+
+    void release(int calls, long now) {
+        while (true) {
+            long current = state;
+            if (STATE.compareAndSet(this, current, policy.release(current, calls, now))) {
+                return;
+            }
+        }
+    }
+
+    QuotaPolicy getPolicy() {
+        return policy;
+    }
+
+    ApiKeyDetail toApiKeyDetail(String apiKey, long now) {
+        long current = state;
+        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
+        apiKeyDetail.setApiKey(apiKey);
+        apiKeyDetail.setTier(tier);
+        apiKeyDetail.setTimestamp(policy.timestamp(current));
+        apiKeyDetail.setNumberOfTimesUsed(policy.numberOfTimesUsed(current, now));
+        return apiKeyDetail;
+    }
+}
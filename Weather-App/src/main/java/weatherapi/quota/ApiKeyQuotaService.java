@@ -0,0 +1,37 @@
+package weatherapi.quota;
+
+import weatherapi.exception.WeatherApiException;
+import weatherapi.security.ApiKeyTier;
+
+public interface ApiKeyQuotaService {
+
+    /**
+     * Reserves calls of an API key within its current one-hour window. An API key which has no calls left
+     * is deleted.
+     * @param apiKey
+     * @param tier The tier of a signed API key which has already been verified, or null if the API key is not signed.
+     * @param calls The number of calls wanted.
+     * @return The number of calls reserved, which is fewer than wanted when the API key is about to reach its limit.
+     * @throws WeatherApiException if the API key is not valid or has reached its limit.
+     */
+    int acquire(String apiKey, ApiKeyTier tier, int calls) throws WeatherApiException;
+
+    /**
+     * Gives back calls which were reserved but have not been served.
+     * @param apiKey
+     * @param calls
+     */
+    void release(String apiKey, int calls);
+
+    /**
+     * Forgets the usage of an API key which has been deleted from the database, including usage which has not been
+     * saved yet, so that it is read from the database on its next call.
+     * @param apiKey
+     */
+    void evict(String apiKey);
+
+    /**
+     * Saves the usage of the API keys which has only been counted in memory so far.
+     */
+    void flushUsage();
+}
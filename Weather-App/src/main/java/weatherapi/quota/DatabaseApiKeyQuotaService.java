@@ -0,0 +1,76 @@
+package weatherapi.quota;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_REACHED_LIMIT;
+
+/**
+ * Counts the calls of each API key in the database with one conditional update per request, which takes as many of
+ * the wanted calls as are left, so that several instances of the application sharing one database enforce the same
+ * limit. The API key is only read when the update is rejected, to tell an unknown API key from one which has reached
+ * its limit.
+ * <p>
+ * The conditional update counts a fixed window, so every tier is limited to the limit and window of its quota
+ * policy without the smoothing of the sliding window and token bucket policies. The tier is read from the signed
+ * API key, which the caller has already verified, and API keys issued before the keys were signed are in the free tier.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.api-key.quota.mode", havingValue = "database")
+public class DatabaseApiKeyQuotaService implements ApiKeyQuotaService {
+
+    @Autowired
+    private ApiKeyDetailService apiKeyDetailService;
+    @Autowired
+    private QuotaPolicies quotaPolicies;
+
+    @Override
+    public int acquire(String apiKey, ApiKeyTier tier, int calls) throws WeatherApiException {
+        QuotaPolicy policy = quotaPolicies.forTier(tier);
+        int acquired = apiKeyDetailService.consumeCalls(apiKey, calls, policy.getLimit(), policy.getWindow(),
+                                                        policy.isSpentWhenExhausted());
+        if (acquired > 0) {
+            return acquired;
+        }
+
+        Optional<ApiKeyDetail> result = apiKeyDetailService.findByApiKey(apiKey);
+        if (result.isEmpty()) {
+            throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+        }
+        if (policy.isSpentWhenExhausted() && isExhausted(policy, result.get())) {
+            apiKeyDetailService.delete(apiKey); // Delete the expired API key
+        }
+        throw new WeatherApiException(ERROR_API_KEY_REACHED_LIMIT);
+    }
+
+    @Override
+    public void release(String apiKey, int calls) {
+        if (calls > 0) {
+            apiKeyDetailService.releaseCalls(apiKey, calls);
+        }
+    }
+
+    @Override
+    public void evict(String apiKey) {
+        // Nothing is kept in memory
+    }
+
+    @Override
+    public void flushUsage() {
+        // Every call is counted in the database
+    }
+
+    private static boolean isExhausted(QuotaPolicy policy, ApiKeyDetail apiKeyDetail) {
+        long state = policy.initialState(apiKeyDetail.getTimestamp(), apiKeyDetail.getNumberOfTimesUsed());
+        return policy.available(state, 1, new Date().getTime()) == QuotaPolicy.NO_CALLS_LEFT;
+    }
+}
@@ -0,0 +1,92 @@
+package weatherapi.quota;
+
+/**
+ * Allows limit calls per window, counted from the first call of the window. The start of the window and the number
+ * of calls made within it are packed into the usage. A window which has ended is restarted unless the limit was
+ * reached within it, in which case the API key is spent.
+ * <p>
+ * Up to twice the limit can be called around the end of a window.
+ */
+final class FixedWindowQuotaPolicy implements QuotaPolicy {
+
+    private static final int COUNT_BITS = 16;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int limit;
+    private final long window;
+
+    FixedWindowQuotaPolicy(int limit, long window) {
+        if (limit < 1 || limit > COUNT_MASK || window < 1) {
+            throw new IllegalArgumentException("Invalid fixed window quota of " + limit + " calls per " + window + " ms");
+        }
+        this.limit = limit;
+        this.window = window;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public long getWindow() {
+        return window;
+    }
+
+    @Override
+    public boolean isSpentWhenExhausted() {
+        return true;
+    }
+
+    @Override
+    public long initialState(long timestamp, int numberOfTimesUsed) {
+        return pack(timestamp, Math.min(numberOfTimesUsed, limit));
+    }
+
+    @Override
+    public int available(long state, int calls, long now) {
+        long windowStart = windowStart(state);
+        int count = count(state);
+        if (now - windowStart > window && count < limit) {
+            count = 0;
+        } else if (count >= limit) {
+            return NO_CALLS_LEFT;
+        }
+        return Math.min(calls, limit - count);
+    }
+
+    @Override
+    public long acquire(long state, int calls, long now) {
+        if (now - windowStart(state) > window) {
+            return pack(now, calls);
+        }
+        return pack(windowStart(state), count(state) + calls);
+    }
+
+    @Override
+    public long release(long state, int calls, long now) {
+        return pack(windowStart(state), Math.max(0, count(state) - calls));
+    }
+
+    @Override
+    public long timestamp(long state) {
+        return windowStart(state);
+    }
+
+    @Override
+    public int numberOfTimesUsed(long state, long now) {
+        return count(state);
+    }
+
+    private static long pack(long windowStart, int count) {
+        return (windowStart << COUNT_BITS) | (count & COUNT_MASK);
+    }
+
+    private static long windowStart(long state) {
+        return state >>> COUNT_BITS;
+    }
+
+    private static int count(long state) {
+        return (int) (state & COUNT_MASK);
+    }
+}
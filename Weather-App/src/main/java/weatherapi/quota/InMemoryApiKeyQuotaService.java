@@ -0,0 +1,204 @@
+package weatherapi.quota;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_REACHED_LIMIT;
+
+/**
+ * Counts the calls of each API key in memory with the quota policy of its tier, so that concurrent calls of the
+ * same API key cannot exceed its limit. An API key is read from the H2 database on its first call only, and is
+ * dropped from memory when it has not been used for the idle timeout or when more than max-keys API keys are kept.
+ * An API key whose policy spends it when it has no calls left is deleted, the others are only throttled.
+ * The usage of a deleted API key is kept until it is evicted.
+ * <p>
+ * A change only marks the API key as dirty. The latest usage of the dirty API keys is saved off the request thread
+ * with one JDBC batch of updates: right away, or in write-behind mode every flush interval, as soon as
+ * max-dirty-keys API keys have changed, and on shutdown. The update never adds back a deleted API key.
+ * The calls made since the last flush are lost if the application stops abruptly.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.api-key.quota.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryApiKeyQuotaService implements ApiKeyQuotaService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryApiKeyQuotaService.class);
+
+    @Autowired
+    private ApiKeyDetailService apiKeyDetailService;
+    @Autowired
+    private QuotaPolicies quotaPolicies;
+
+    @Value("${weather.api-key.quota.max-keys:100000}")
+    private long maxKeys;
+    @Value("${weather.api-key.quota.idle-timeout:3600000}")
+    private long idleTimeout;
+    @Value("${weather.api-key.quota.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+    @Value("${weather.api-key.quota.write-behind.max-dirty-keys:500}")
+    private int maxDirtyKeys;
+
+    private Cache<String, ApiKeyQuota> quotas;
+    private final Map<String, ApiKeyQuota> dirtyQuotas = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        quotas = Caffeine.newBuilder()
+                         .maximumSize(maxKeys)
+                         .expireAfterAccess(idleTimeout, TimeUnit.MILLISECONDS)
+                         .build();
+        flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "api-key-usage-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushExecutor.shutdown();
+        flushUsage();
+    }
+
+    @Override
+    public int acquire(String apiKey, ApiKeyTier tier, int calls) throws WeatherApiException {
+        ApiKeyQuota quota = findQuota(apiKey, tier);
+        if (quota.isDeleted()) {
+            throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+        }
+        int acquired = quota.tryAcquire(calls, new Date().getTime());
+        if (acquired == ApiKeyQuota.NO_CALLS_LEFT) {
+            if (!quota.getPolicy().isSpentWhenExhausted()) {
+                throw new WeatherApiException(ERROR_API_KEY_REACHED_LIMIT);
+            }
+            if (!quota.markDeleted()) {
+                throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+            }
+            delete(apiKey, quota);
+            throw new WeatherApiException(ERROR_API_KEY_REACHED_LIMIT);
+        }
+        if (acquired > 0) {
+            save(apiKey, quota);
+        }
+        return acquired;
+    }
+
+    @Override
+    public void release(String apiKey, int calls) {
+        ApiKeyQuota quota = quotas.getIfPresent(apiKey);
+        if (quota != null && !quota.isDeleted() && calls > 0) {
+            quota.release(calls, new Date().getTime());
+            save(apiKey, quota);
+        }
+    }
+
+    @Override
+    public void evict(String apiKey) {
+        quotas.invalidate(apiKey);
+        dirtyQuotas.remove(apiKey);
+    }
+
+    private ApiKeyQuota findQuota(String apiKey, ApiKeyTier signedTier) throws WeatherApiException {
+        ApiKeyQuota quota = quotas.getIfPresent(apiKey);
+        if (quota != null) {
+            return quota;
+        }
+        // An API key dropped from memory before its usage was saved is taken back instead of its older saved usage
+        ApiKeyQuota dirtyQuota = dirtyQuotas.get(apiKey);
+        if (dirtyQuota != null) {
+            return quotas.get(apiKey, key -> dirtyQuota);
+        }
+        Optional<ApiKeyDetail> result = apiKeyDetailService.findByApiKey(apiKey);
+        if (result.isEmpty()) {
+            throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+        }
+        ApiKeyDetail apiKeyDetail = result.get();
+        // The tier of a signed API key cannot be altered, the tier of an unsigned API key is only saved in the database
+        ApiKeyTier tier = signedTier != null ? signedTier : apiKeyDetail.getTier();
+        return quotas.get(apiKey, key -> new ApiKeyQuota(tier,
+                                                         quotaPolicies.forTier(tier),
+                                                         apiKeyDetail.getTimestamp(),
+                                                         apiKeyDetail.getNumberOfTimesUsed()));
+    }
+
+    /**
+     * Deletes the expired API key. A flush which is in progress cannot add it back, as the usage is only updated.
+     */
+    private void delete(String apiKey, ApiKeyQuota quota) {
+        dirtyQuotas.remove(apiKey, quota);
+        apiKeyDetailService.delete(apiKey);
+    }
+
+    /**
+     * Saves the latest usage of the dirty API keys to the H2 database in one JDBC batch. A flush which is in progress
+     * is waited for, so that the usage counted before the call has been saved when it returns.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${weather.api-key.quota.write-behind.flush-interval:1000}")
+    public void flushUsage() {
+        flushRequested.set(false);
+        flushLock.lock();
+        Map<String, ApiKeyQuota> flushedQuotas = new HashMap<>();
+        try {
+            if (dirtyQuotas.isEmpty()) {
+                return;
+            }
+            List<ApiKeyDetail> apiKeyDetails = new ArrayList<>();
+            long now = new Date().getTime();
+            for (String apiKey : dirtyQuotas.keySet()) {
+                // A change made after the removal marks the API key as dirty again for the next flush
+                ApiKeyQuota quota = dirtyQuotas.remove(apiKey);
+                if (quota != null && !quota.isDeleted()) {
+                    flushedQuotas.put(apiKey, quota);
+                    apiKeyDetails.add(quota.toApiKeyDetail(apiKey, now));
+                }
+            }
+            apiKeyDetailService.saveUsage(apiKeyDetails);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to save the usage of {} API keys, retrying on the next flush", flushedQuotas.size(), ex);
+            flushedQuotas.forEach(dirtyQuotas::putIfAbsent);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the API key as dirty, and starts a flush on the flush thread unless write-behind mode waits for more
+     * changes. Changes made while a flush is queued are saved by the same flush.
+     */
+    private void save(String apiKey, ApiKeyQuota quota) {
+        dirtyQuotas.put(apiKey, quota);
+        if ((!writeBehindEnabled || dirtyQuotas.size() >= maxDirtyKeys) && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flushUsage);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package weatherapi.quota;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import weatherapi.security.ApiKeyTier;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The quota policy of each API key tier: "fixed-window", "sliding-window" or "token-bucket" with its limit of calls
+ * per window (in milliseconds), and for the token bucket its burst size. By default the free tier keeps the original
+ * 5 calls per hour, after which the API key is spent.
+ */
+@Component
+public class QuotaPolicies {
+
+    public static final String FIXED_WINDOW = "fixed-window";
+    public static final String SLIDING_WINDOW = "sliding-window";
+    public static final String TOKEN_BUCKET = "token-bucket";
+
+    @Value("${weather.api-key.quota.free.policy:fixed-window}")
+    private String freePolicy;
+    @Value("${weather.api-key.quota.free.limit:5}")
+    private int freeLimit;
+    @Value("${weather.api-key.quota.free.window:3600000}")
+    private long freeWindow;
+    @Value("${weather.api-key.quota.free.burst:5}")
+    private int freeBurst;
+
+    @Value("${weather.api-key.quota.standard.policy:sliding-window}")
+    private String standardPolicy;
+    @Value("${weather.api-key.quota.standard.limit:1000}")
+    private int standardLimit;
+    @Value("${weather.api-key.quota.standard.window:3600000}")
+    private long standardWindow;
+    @Value("${weather.api-key.quota.standard.burst:100}")
+    private int standardBurst;
+
+    @Value("${weather.api-key.quota.premium.policy:token-bucket}")
+    private String premiumPolicy;
+    @Value("${weather.api-key.quota.premium.limit:36000}")
+    private int premiumLimit;
+    @Value("${weather.api-key.quota.premium.window:3600000}")
+    private long premiumWindow;
+    @Value("${weather.api-key.quota.premium.burst:200}")
+    private int premiumBurst;
+
+    private final Map<ApiKeyTier, QuotaPolicy> policies = new EnumMap<>(ApiKeyTier.class);
+
+    public QuotaPolicies() {
+    }
+
+    QuotaPolicies(Map<ApiKeyTier, QuotaPolicy> policies) {
+        this.policies.putAll(policies);
+    }
+
+    @PostConstruct
+    public void init() {
+        policies.put(ApiKeyTier.FREE, build(freePolicy, freeLimit, freeWindow, freeBurst));
+        policies.put(ApiKeyTier.STANDARD, build(standardPolicy, standardLimit, standardWindow, standardBurst));
+        policies.put(ApiKeyTier.PREMIUM, build(premiumPolicy, premiumLimit, premiumWindow, premiumBurst));
+    }
+
+    /**
+     * @param tier
+     * @return The quota policy of the tier, or of the free tier if the tier is not known.
+     */
+    public QuotaPolicy forTier(ApiKeyTier tier) {
+        return policies.get(tier == null ? ApiKeyTier.FREE : tier);
+    }
+
+    static QuotaPolicy build(String policy, int limit, long window, int burst) {
+        switch (policy) {
+            case FIXED_WINDOW:
+                return new FixedWindowQuotaPolicy(limit, window);
+            case SLIDING_WINDOW:
+                return new SlidingWindowQuotaPolicy(limit, window);
+            case TOKEN_BUCKET:
+                return new TokenBucketQuotaPolicy(limit, window, burst);
+            default:
+                throw new IllegalStateException("Unknown quota policy " + policy);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package weatherapi.quota;
+
+/**
+ * How the calls of an API key are admitted. The usage of one API key is kept in a single long, so that a call is
+ * checked and counted with one compare-and-set and millions of API keys fit in memory. A policy is immutable and
+ * shared by all the API keys of its tier, it only computes the next usage from the current one.
+ */
+public interface QuotaPolicy {
+
+    int NO_CALLS_LEFT = -1;
+
+    /**
+     * @return The number of calls allowed per window.
+     */
+    int getLimit();
+
+    /**
+     * @return The length of the window, in milliseconds.
+     */
+    long getWindow();
+
+    /**
+     * @return True if an API key which has no calls left is spent and deleted, false if it is only throttled
+     * until calls become available again.
+     */
+    boolean isSpentWhenExhausted();
+
+    /**
+     * Restores the usage of an API key from its timestamp and number of times used in the database.
+     */
+    long initialState(long timestamp, int numberOfTimesUsed);
+
+    /**
+     * @return The number of the wanted calls which can be reserved now, or {@link #NO_CALLS_LEFT}.
+     */
+    int available(long state, int calls, long now);
+
+    /**
+     * @return The usage after reserving calls, which must not be more than {@link #available} returned.
+     */
+    long acquire(long state, int calls, long now);
+
+    /**
+     * @return The usage after giving back calls which were reserved but have not been served.
+     */
+    long release(long state, int calls, long now);
+
+    /**
+     * @return The timestamp saved in the database for the usage.
+     */
+    long timestamp(long state);
+
+    /**
+     * @return The number of times used saved in the database for the usage.
+     */
+    int numberOfTimesUsed(long state, long now);
+}
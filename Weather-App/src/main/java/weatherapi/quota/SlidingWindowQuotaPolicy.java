@@ -0,0 +1,117 @@
+package weatherapi.quota;
+
+/**
+ * Allows limit calls within any window-long period, estimated from the calls of the current and the previous fixed
+ * windows: the calls of the previous window are weighted by how much of it still overlaps the last window-long
+ * period. Unlike a fixed window, a burst at the end of one window is still counted at the start of the next one.
+ * <p>
+ * The index of the current window and the calls of both windows are packed into the usage. Only the calls of the
+ * current window are saved to the database, so the previous window is forgotten when the API key is read again.
+ */
+final class SlidingWindowQuotaPolicy implements QuotaPolicy {
+
+    private static final int COUNT_BITS = 16;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long MIN_WINDOW = 1000;
+
+    private final int limit;
+    private final long window;
+
+    SlidingWindowQuotaPolicy(int limit, long window) {
+        // The window index must fit in 32 bits
+        if (limit < 1 || limit > COUNT_MASK || window < MIN_WINDOW) {
+            throw new IllegalArgumentException("Invalid sliding window quota of " + limit + " calls per " + window + " ms");
+        }
+        this.limit = limit;
+        this.window = window;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public long getWindow() {
+        return window;
+    }
+
+    @Override
+    public boolean isSpentWhenExhausted() {
+        return false;
+    }
+
+    @Override
+    public long initialState(long timestamp, int numberOfTimesUsed) {
+        return pack(timestamp / window, 0, Math.min(numberOfTimesUsed, limit));
+    }
+
+    @Override
+    public int available(long state, int calls, long now) {
+        long current = roll(state, now);
+        long elapsed = now - windowIndex(current) * window;
+        // Round the weighted calls up, so that the limit is never exceeded
+        long weighted = (previous(current) * Math.max(0, window - elapsed) + window - 1) / window;
+        long left = limit - weighted - count(current);
+        if (left <= 0) {
+            return NO_CALLS_LEFT;
+        }
+        return (int) Math.min(calls, left);
+    }
+
+    @Override
+    public long acquire(long state, int calls, long now) {
+        long current = roll(state, now);
+        return pack(windowIndex(current), previous(current), count(current) + calls);
+    }
+
+    @Override
+    public long release(long state, int calls, long now) {
+        long current = roll(state, now);
+        int count = count(current);
+        int fromCount = Math.min(calls, count);
+        int previous = Math.max(0, previous(current) - (calls - fromCount));
+        return pack(windowIndex(current), previous, count - fromCount);
+    }
+
+    @Override
+    public long timestamp(long state) {
+        return windowIndex(state) * window;
+    }
+
+    @Override
+    public int numberOfTimesUsed(long state, long now) {
+        return count(roll(state, now));
+    }
+
+    /**
+     * Moves the usage to the window of now. The calls of the current window become those of the previous window.
+     */
+    private long roll(long state, long now) {
+        long nowIndex = now / window;
+        long windowIndex = windowIndex(state);
+        if (nowIndex <= windowIndex) {
+            return state;
+        }
+        if (nowIndex == windowIndex + 1) {
+            return pack(nowIndex, count(state), 0);
+        }
+        return pack(nowIndex, 0, 0);
+    }
+
+    private static long pack(long windowIndex, int previous, int count) {
+        return (windowIndex << (2 * COUNT_BITS)) | ((previous & COUNT_MASK) << COUNT_BITS) | (count & COUNT_MASK);
+    }
+
+    private static long windowIndex(long state) {
+        return state >>> (2 * COUNT_BITS);
+    }
+
+    private static int previous(long state) {
+        return (int) ((state >>> COUNT_BITS) & COUNT_MASK);
+    }
+
+    private static int count(long state) {
+        return (int) (state & COUNT_MASK);
+    }
+}
@@ -0,0 +1,88 @@
+package weatherapi.quota;
+
+/**
+ * Refills limit calls per window at a steady rate into a bucket of burst calls, so that calls are admitted smoothly
+ * and at most burst calls are admitted at once. The bucket is kept as the generic cell rate algorithm does: the
+ * usage is the theoretical arrival time in microseconds, the time at which the bucket would be full again.
+ */
+final class TokenBucketQuotaPolicy implements QuotaPolicy {
+
+    private static final long MICROS_PER_MILLI = 1000;
+
+    private final int limit;
+    private final long window;
+    private final int burst;
+    // Time to refill one call, in microseconds
+    private final long interval;
+    private final long tolerance;
+
+    TokenBucketQuotaPolicy(int limit, long window, int burst) {
+        if (limit < 1 || burst < 1 || window * MICROS_PER_MILLI < limit) {
+            throw new IllegalArgumentException("Invalid token bucket quota of " + limit + " calls per " + window
+                                               + " ms with bursts of " + burst);
+        }
+        this.limit = limit;
+        this.window = window;
+        this.burst = burst;
+        this.interval = window * MICROS_PER_MILLI / limit;
+        this.tolerance = burst * interval;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public long getWindow() {
+        return window;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public boolean isSpentWhenExhausted() {
+        return false;
+    }
+
+    /**
+     * A new API key starts with a full bucket. The saved timestamp of a used API key is its theoretical arrival time.
+     */
+    @Override
+    public long initialState(long timestamp, int numberOfTimesUsed) {
+        return timestamp * MICROS_PER_MILLI;
+    }
+
+    @Override
+    public int available(long state, int calls, long now) {
+        long nowMicros = now * MICROS_PER_MILLI;
+        long left = (tolerance - (Math.max(state, nowMicros) - nowMicros)) / interval;
+        if (left <= 0) {
+            return NO_CALLS_LEFT;
+        }
+        return (int) Math.min(calls, left);
+    }
+
+    @Override
+    public long acquire(long state, int calls, long now) {
+        return Math.max(state, now * MICROS_PER_MILLI) + calls * interval;
+    }
+
+    @Override
+    public long release(long state, int calls, long now) {
+        return Math.max(state - calls * interval, Math.min(state, now * MICROS_PER_MILLI));
+    }
+
+    @Override
+    public long timestamp(long state) {
+        return state / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public int numberOfTimesUsed(long state, long now) {
+        long used = state - now * MICROS_PER_MILLI;
+        return used <= 0 ? 0 : (int) ((used + interval - 1) / interval);
+    }
+}
@@ -1,10 +1,35 @@
 package weatherapi.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeyTier;
+
+import java.util.List;
 
 @Repository
-public interface ApiKeyRepository extends JpaRepository<ApiKeyDetail, String> {
+public interface ApiKeyRepository extends JpaRepository<ApiKeyDetail, String>, ApiKeyRepositoryCustom {
+
+    /**
+     * Gives back calls of an API key which have not been served.
+     * @return 1 if the calls were given back, otherwise 0.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ApiKeyDetail a SET a.numberOfTimesUsed = a.numberOfTimesUsed - :calls "
+            + "WHERE a.apiKey = :apiKey AND a.numberOfTimesUsed >= :calls")
+    int releaseCalls(@Param("apiKey") String apiKey, @Param("calls") int calls);
 
+    /**
+     * Finds a batch of API keys of a tier which have reached their limit, or whose window started before unusedSince.
+     */
+    @Query("SELECT a.apiKey FROM ApiKeyDetail a WHERE a.tier = :tier "
+            + "AND (a.numberOfTimesUsed >= :limit OR a.timestamp < :unusedSince) ORDER BY a.timestamp")
+    List<String> findSpentApiKeys(@Param("tier") ApiKeyTier tier, @Param("limit") int limit,
+                                  @Param("unusedSince") long unusedSince, Pageable pageable);
 }
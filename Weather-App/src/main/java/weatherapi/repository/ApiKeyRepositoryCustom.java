@@ -0,0 +1,51 @@
+package weatherapi.repository;
+
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeyTier;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ApiKeyRepositoryCustom {
+
+    /**
+     * Consumes up to the wanted calls of an API key in one statement. A window which started before windowStart is
+     * restarted at now, unless the limit was reached within it and the API key is spent when its limit is reached.
+     * Otherwise as many of the calls as are left within the limit are counted.
+     * @param apiKey
+     * @param calls
+     * @param limit
+     * @param now
+     * @param windowStart The start of the current window, i.e. now minus the length of the window.
+     * @param spentWhenExhausted False if the API key is throttled instead of spent when it reaches its limit.
+     * @return The number of calls consumed, or 0 if the API key does not exist or has no calls left.
+     */
+    int consumeCalls(String apiKey, int calls, int limit, long now, long windowStart, boolean spentWhenExhausted);
+
+    /**
+     * Updates the timestamp and the number of times used of existing API keys in one JDBC batch.
+     * API keys which no longer exist are not added back.
+     * @param apiKeyDetails
+     */
+    void updateUsage(List<ApiKeyDetail> apiKeyDetails);
+
+    /**
+     * Inserts new API keys with JDBC batches of batchSize rows.
+     * @param apiKeyDetails
+     * @param batchSize
+     */
+    void insertAll(List<ApiKeyDetail> apiKeyDetails, int batchSize);
+
+    /**
+     * Deletes the API keys of a tier which have reached the limit or have not been used since unusedSince, in one
+     * JDBC batch. An API key which has been used since it was found is kept.
+     * @return The API keys which were deleted.
+     */
+    List<String> deleteSpentApiKeys(List<String> apiKeys, ApiKeyTier tier, int limit, long unusedSince);
+
+    /**
+     * Streams the API keys which are not signed, without loading them all into memory at once.
+     * @param action Called with each API key.
+     */
+    void forEachUnsignedApiKey(Consumer<String> action);
+}
@@ -0,0 +1,88 @@
+package weatherapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeySigner;
+import weatherapi.security.ApiKeyTier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ApiKeyRepositoryCustomImpl implements ApiKeyRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO api_key (api_key, timestamp, number_of_time_used, tier) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_USAGE = "UPDATE api_key SET timestamp = ?, number_of_time_used = ? WHERE api_key = ?";
+    // The old row of the H2 data change delta table tells how many calls the update took
+    private static final String CONSUME_CALLS = "SELECT timestamp, number_of_time_used FROM OLD TABLE (UPDATE api_key "
+                                                + "SET number_of_time_used = CASE WHEN timestamp < ? THEN ? "
+                                                + "ELSE LEAST(number_of_time_used + ?, ?) END, "
+                                                + "timestamp = CASE WHEN timestamp < ? THEN ? ELSE timestamp END "
+                                                + "WHERE api_key = ? AND ((timestamp < ? AND number_of_time_used < ?) "
+                                                + "OR (timestamp >= ? AND number_of_time_used < ?)))";
+    private static final String DELETE_SPENT = "DELETE FROM api_key WHERE api_key = ? AND tier = ? "
+                                               + "AND (number_of_time_used >= ? OR timestamp < ?)";
+    private static final String SELECT_UNSIGNED = "SELECT api_key FROM api_key WHERE api_key NOT LIKE ? ESCAPE '!'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int consumeCalls(String apiKey, int calls, int limit, long now, long windowStart, boolean spentWhenExhausted) {
+        int wanted = Math.min(calls, limit);
+        // A throttled API key restarts its window however many calls it made in the previous one
+        int restartLimit = spentWhenExhausted ? limit : Integer.MAX_VALUE;
+        List<Integer> consumed = jdbcTemplate.query(CONSUME_CALLS, (resultSet, rowNum) -> {
+            if (resultSet.getLong(1) < windowStart) {
+                return wanted;
+            }
+            return Math.min(wanted, limit - resultSet.getInt(2));
+        }, windowStart, wanted, wanted, limit, windowStart, now, apiKey, windowStart, restartLimit, windowStart, limit);
+        return consumed.isEmpty() ? 0 : consumed.get(0);
+    }
+
+    @Override
+    public void updateUsage(List<ApiKeyDetail> apiKeyDetails) {
+        jdbcTemplate.batchUpdate(UPDATE_USAGE, apiKeyDetails, apiKeyDetails.size(), (preparedStatement, apiKeyDetail) -> {
+            preparedStatement.setLong(1, apiKeyDetail.getTimestamp());
+            preparedStatement.setInt(2, apiKeyDetail.getNumberOfTimesUsed());
+            preparedStatement.setString(3, apiKeyDetail.getApiKey());
+        });
+    }
+
+    @Override
+    public void insertAll(List<ApiKeyDetail> apiKeyDetails, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT, apiKeyDetails, batchSize, (preparedStatement, apiKeyDetail) -> {
+            preparedStatement.setString(1, apiKeyDetail.getApiKey());
+            preparedStatement.setLong(2, apiKeyDetail.getTimestamp());
+            preparedStatement.setInt(3, apiKeyDetail.getNumberOfTimesUsed());
+            preparedStatement.setString(4, apiKeyDetail.getTier().name());
+        });
+    }
+
+    @Override
+    public List<String> deleteSpentApiKeys(List<String> apiKeys, ApiKeyTier tier, int limit, long unusedSince) {
+        int[][] deleted = jdbcTemplate.batchUpdate(DELETE_SPENT, apiKeys, apiKeys.size(), (preparedStatement, apiKey) -> {
+            preparedStatement.setString(1, apiKey);
+            preparedStatement.setString(2, tier.name());
+            preparedStatement.setInt(3, limit);
+            preparedStatement.setLong(4, unusedSince);
+        });
+        List<String> deletedApiKeys = new ArrayList<>();
+        for (int i = 0; i < apiKeys.size(); i++) {
+            if (deleted[0][i] > 0) {
+                deletedApiKeys.add(apiKeys.get(i));
+            }
+        }
+        return deletedApiKeys;
+    }
+
+    @Override
+    public void forEachUnsignedApiKey(Consumer<String> action) {
+        String signedPattern = ApiKeySigner.PREFIX.replace("_", "!_") + "%";
+        jdbcTemplate.query(SELECT_UNSIGNED, resultSet -> {
+            action.accept(resultSet.getString(1));
+        }, signedPattern);
+    }
+}
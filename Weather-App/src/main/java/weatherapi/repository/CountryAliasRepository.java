@@ -0,0 +1,10 @@
+package weatherapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import weatherapi.entity.CountryAlias;
+
+@Repository
+public interface CountryAliasRepository extends JpaRepository<CountryAlias, Integer> {
+
+}
@@ -1,14 +1,54 @@
 package weatherapi.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import weatherapi.entity.WeatherReportDetail;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WeatherReportRepository extends JpaRepository<WeatherReportDetail, Long> {
 
-    List<WeatherReportDetail> findByAllIgnoreCaseCityAndCountry(String city, String country);
+    /**
+     * Finds the weather report of a city with a seek on the unique (city_key, country_code) index.
+     * @param cityKey The normalised city name.
+     * @param countryCode The upper-case country code.
+     * @return The weather report, or nothing if the city has none.
+     */
+    Optional<WeatherReportDetail> findByCityKeyAndCountryCode(String cityKey, String countryCode);
+
+    /**
+     * Inserts the weather report of a city, or updates it if the city already has one, in one statement.
+     * Concurrent saves of the same city therefore leave exactly one row.
+     * @return The number of rows inserted or updated.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "MERGE INTO weather_report_details (city_key, country_code, city, country, description, timestamp) "
+            + "KEY (city_key, country_code) "
+            + "VALUES (:cityKey, :countryCode, :city, :country, :description, :timestamp)", nativeQuery = true)
+    int upsert(@Param("cityKey") String cityKey, @Param("countryCode") String countryCode, @Param("city") String city,
+               @Param("country") String country, @Param("description") String description,
+               @Param("timestamp") long timestamp);
+
+    /**
+     * Finds a batch of weather reports which are older than the retention period.
+     */
+    @Query("SELECT w.id FROM WeatherReportDetail w WHERE w.timestamp < :expiredBefore ORDER BY w.timestamp")
+    List<Long> findExpiredIds(@Param("expiredBefore") long expiredBefore, Pageable pageable);
+
+    /**
+     * Deletes the weather reports unless they have been refreshed since they were found.
+     * @return The number of weather reports deleted.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM WeatherReportDetail w WHERE w.id IN :ids AND w.timestamp < :expiredBefore")
+    int deleteExpired(@Param("ids") List<Long> ids, @Param("expiredBefore") long expiredBefore);
 }
@@ -0,0 +1,150 @@
+package weatherapi.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import weatherapi.quota.ApiKeyQuotaService;
+import weatherapi.quota.QuotaPolicies;
+import weatherapi.quota.QuotaPolicy;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+import weatherapi.service.WeatherReportDaoService;
+
+import java.util.Date;
+import java.util.List;
+
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+/**
+ * Deletes the weather reports which are older than their retention period, and the API keys which have reached
+ * their limit (for the tiers whose quota policy spends them) or have not been used within their retention period,
+ * so that the in-memory H2 database does not grow without bound. Rows are deleted in batches of {@code weather.sweeper.batch-size}, with at most
+ * {@code weather.sweeper.max-batches-per-run} batches per table and run, so that one run never holds long locks.
+ * The deleted rows are counted as weather.sweeper.rows.removed and each run is timed as weather.sweeper.duration.
+ */
+@Component
+public class ExpiredDataSweeper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpiredDataSweeper.class);
+
+    @Autowired
+    private WeatherReportDaoService weatherReportDaoService;
+    @Autowired
+    private ApiKeyDetailService apiKeyDetailService;
+    @Autowired
+    private ApiKeyQuotaService apiKeyQuotaService;
+    @Autowired
+    private QuotaPolicies quotaPolicies;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${weather.sweeper.enabled:true}")
+    private boolean enabled;
+    @Value("${weather.sweeper.weather-report-retention:86400000}")
+    private long weatherReportRetention;
+    @Value("${weather.sweeper.api-key-retention:604800000}")
+    private long apiKeyRetention;
+    @Value("${weather.sweeper.batch-size:500}")
+    private int batchSize;
+    @Value("${weather.sweeper.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    @Value("${weather.report.stale-grace-period:0}")
+    private long staleGracePeriod;
+
+    private Counter removedWeatherReports;
+    private Counter removedApiKeys;
+    private Timer sweepDuration;
+
+    @PostConstruct
+    public void init() {
+        // A weather report which can still be served must not be deleted
+        if (weatherReportRetention < ONE_HOUR + staleGracePeriod) {
+            LOGGER.warn("The weather report retention of {} ms is shorter than a weather report is served, using {} ms",
+                        weatherReportRetention, ONE_HOUR + staleGracePeriod);
+            weatherReportRetention = ONE_HOUR + staleGracePeriod;
+        }
+        removedWeatherReports = removedRowCounter("weather_report_details");
+        removedApiKeys = removedRowCounter("api_key");
+        sweepDuration = Timer.builder("weather.sweeper.duration")
+                             .description("Time taken by one run of the expired data sweeper")
+                             .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${weather.sweeper.interval:300000}",
+               initialDelayString = "${weather.sweeper.interval:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        sweepDuration.record(() -> {
+            long now = new Date().getTime();
+            try {
+                int weatherReports = sweepWeatherReports(now - weatherReportRetention);
+                // Save the usage counted in memory first, so that an API key which is in use is not deleted
+                apiKeyQuotaService.flushUsage();
+                int apiKeys = 0;
+                for (ApiKeyTier tier : ApiKeyTier.values()) {
+                    apiKeys += sweepApiKeys(tier, now - apiKeyRetention);
+                }
+                if (weatherReports > 0 || apiKeys > 0) {
+                    LOGGER.info("Deleted {} expired weather reports and {} spent API keys", weatherReports, apiKeys);
+                }
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Failed to delete the expired weather reports and spent API keys", ex);
+            }
+        });
+    }
+
+    private int sweepWeatherReports(long expiredBefore) {
+        int removed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = weatherReportDaoService.findExpiredIds(expiredBefore, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            int deleted = weatherReportDaoService.deleteExpired(ids, expiredBefore);
+            removedWeatherReports.increment(deleted);
+            removed += deleted;
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    private int sweepApiKeys(ApiKeyTier tier, long unusedSince) {
+        QuotaPolicy policy = quotaPolicies.forTier(tier);
+        // The API keys of a tier which are throttled rather than spent are only deleted when they are not used
+        int limit = policy.isSpentWhenExhausted() ? policy.getLimit() : Integer.MAX_VALUE;
+        int removed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<String> apiKeys = apiKeyDetailService.findSpentApiKeys(tier, limit, unusedSince, batchSize);
+            if (apiKeys.isEmpty()) {
+                break;
+            }
+            List<String> deleted = apiKeyDetailService.deleteSpentApiKeys(apiKeys, tier, limit, unusedSince);
+            // Only the deleted API keys are dropped from memory, the others keep the usage which may not be saved yet
+            deleted.forEach(apiKeyQuotaService::evict);
+            removedApiKeys.increment(deleted.size());
+            removed += deleted.size();
+            if (apiKeys.size() < batchSize) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    private Counter removedRowCounter(String table) {
+        return Counter.builder("weather.sweeper.rows.removed")
+                      .description("Rows deleted by the expired data sweeper")
+                      .tag("table", table)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,48 @@
+package weatherapi.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A city and country which has been requested, with its decaying request count.
+ */
+public class PopularCity {
+
+    private final String city;
+    private final String country;
+    private final String countryCode;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public PopularCity(String city, String country, String countryCode) {
+        this.city = city;
+        this.country = country;
+        this.countryCode = countryCode;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    void increment() {
+        requestCount.incrementAndGet();
+    }
+
+    /**
+     * Halves the request count so that the popularity follows recent traffic.
+     * @return The new request count.
+     */
+    long decay() {
+        return requestCount.updateAndGet(count -> count / 2);
+    }
+}
@@ -0,0 +1,108 @@
+package weatherapi.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import weatherapi.cache.WeatherReportCache;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toList;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+/**
+ * Counts the weather report requests of each city and country code, so that the most popular cities can be
+ * prefetched by {@link WeatherReportPrefetchScheduler} before their weather reports expire.
+ */
+@Component
+public class WeatherReportPopularityTracker {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${weather.report.popularity.max-tracked:10000}")
+    private int maxTrackedCities;
+
+    private final Map<String, PopularCity> popularCities = new ConcurrentHashMap<>();
+    // Expiry time of the weather report which was replaced by a prefetch, by city and country code
+    private final Map<String, Long> prefetchedCities = new ConcurrentHashMap<>();
+
+    private Counter preventedMisses;
+
+    @PostConstruct
+    public void init() {
+        preventedMisses = Counter.builder("weather.report.prefetch.prevented.misses")
+                                 .description("Requests served by a prefetched weather report after the previous report had expired")
+                                 .register(meterRegistry);
+        Gauge.builder("weather.report.popularity.tracked", popularCities, Map::size)
+             .description("Number of cities whose requests are counted")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Counts a weather report request which has been served. A request which arrives after the previous weather
+     * report of a prefetched city would have expired is counted as a prevented miss.
+     * @param city
+     * @param country
+     * @param countryCode
+     */
+    public void recordRequest(String city, String country, String countryCode) {
+        String key = WeatherReportCache.buildKey(city, countryCode);
+        PopularCity popularCity = popularCities.get(key);
+        if (popularCity == null && popularCities.size() < maxTrackedCities) {
+            popularCity = popularCities.computeIfAbsent(key, k -> new PopularCity(city, country, countryCode));
+        }
+        if (popularCity != null) {
+            popularCity.increment();
+        }
+
+        if (!prefetchedCities.isEmpty()) {
+            Long previousExpiry = prefetchedCities.get(key);
+            if (previousExpiry != null && new Date().getTime() > previousExpiry && prefetchedCities.remove(key, previousExpiry)) {
+                preventedMisses.increment();
+            }
+        }
+    }
+
+    /**
+     * Records that the weather report of a city has been prefetched.
+     * @param city
+     * @param countryCode
+     * @param previousExpiry The time the replaced weather report expires at, or 0 if there was none.
+     */
+    public void recordPrefetch(String city, String countryCode, long previousExpiry) {
+        prefetchedCities.put(WeatherReportCache.buildKey(city, countryCode), previousExpiry);
+    }
+
+    /**
+     * @param limit
+     * @return The most requested cities, most popular first.
+     */
+    public List<PopularCity> findMostPopular(int limit) {
+        return popularCities.values().stream()
+                            .sorted(Comparator.comparingLong(PopularCity::getRequestCount).reversed())
+                            .limit(limit)
+                            .collect(toList());
+    }
+
+    /**
+     * Halves the request count of every city and stops tracking the cities which are no longer requested.
+     */
+    public void decay() {
+        popularCities.forEach((key, popularCity) -> {
+            if (popularCity.decay() == 0) {
+                popularCities.remove(key, popularCity);
+            }
+        });
+        long now = new Date().getTime();
+        prefetchedCities.entrySet().removeIf(entry -> entry.getValue() + ONE_HOUR < now);
+    }
+}
@@ -0,0 +1,148 @@
+package weatherapi.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import weatherapi.cache.CachedWeatherReport;
+import weatherapi.cache.WeatherReportCache;
+import weatherapi.service.WeatherReportService;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toList;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+/**
+ * Refreshes the weather reports of the most requested cities shortly before they expire, so that their requests
+ * are served from the in-memory cache instead of waiting for the Open Weather Service.
+ * The refreshes of one run are spread evenly over the interval, and at most
+ * {@code weather.report.prefetch.max-calls-per-run} calls to the Open Weather Service are made per run.
+ */
+@Component
+public class WeatherReportPrefetchScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeatherReportPrefetchScheduler.class);
+
+    @Autowired
+    private WeatherReportPopularityTracker weatherReportPopularityTracker;
+    @Autowired
+    private WeatherReportService weatherReportService;
+    @Autowired
+    private WeatherReportCache weatherReportCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${weather.report.prefetch.enabled:true}")
+    private boolean enabled;
+    @Value("${weather.report.prefetch.interval:60000}")
+    private long interval;
+    @Value("${weather.report.prefetch.top-n:300}")
+    private int topN;
+    @Value("${weather.report.prefetch.lead-time:300000}")
+    private long leadTime;
+    @Value("${weather.report.prefetch.max-calls-per-run:50}")
+    private int maxCallsPerRun;
+
+    private Counter successfulRefreshes;
+    private Counter failedRefreshes;
+    private Counter skippedRefreshes;
+
+    private volatile Disposable currentRun;
+
+    @PostConstruct
+    public void init() {
+        successfulRefreshes = refreshCounter("success");
+        failedRefreshes = refreshCounter("failure");
+        skippedRefreshes = refreshCounter("over_budget");
+    }
+
+    @Scheduled(fixedDelayString = "${weather.report.prefetch.interval:60000}",
+               initialDelayString = "${weather.report.prefetch.interval:60000}")
+    public void prefetchPopularWeatherReports() {
+        if (!enabled) {
+            return;
+        }
+        Disposable previousRun = currentRun;
+        if (previousRun != null && !previousRun.isDisposed()) {
+            LOGGER.warn("Skipping the weather report prefetch as the previous one is still running");
+            return;
+        }
+
+        long now = new Date().getTime();
+        List<PopularCity> expiringCities = weatherReportPopularityTracker.findMostPopular(topN).stream()
+                                                                        .filter(popularCity -> isExpiringSoon(findExpiry(popularCity), now))
+                                                                        .collect(toList());
+        weatherReportPopularityTracker.decay();
+        if (expiringCities.isEmpty()) {
+            return;
+        }
+        if (expiringCities.size() > maxCallsPerRun) {
+            skippedRefreshes.increment(expiringCities.size() - maxCallsPerRun);
+            expiringCities = expiringCities.subList(0, maxCallsPerRun);
+        }
+
+        // Spread the calls to the Open Weather Service over the interval instead of sending them at once
+        Duration spacing = Duration.ofMillis(interval / (expiringCities.size() + 1));
+        currentRun = Flux.fromIterable(expiringCities)
+                         .delayElements(spacing)
+                         .concatMap(this::prefetchWeatherReport)
+                         .subscribe();
+    }
+
+    private Mono<Void> prefetchWeatherReport(PopularCity popularCity) {
+        // The weather report may have been refreshed by a request since the run started
+        long now = new Date().getTime();
+        Optional<Long> previousExpiry = findExpiry(popularCity);
+        if (!isExpiringSoon(previousExpiry, now)) {
+            return Mono.empty();
+        }
+        return weatherReportService.refreshWeatherReportAsync(popularCity.getCity(), popularCity.getCountry(),
+                                                              popularCity.getCountryCode())
+                                   .doOnNext(weatherReport -> {
+                                       successfulRefreshes.increment();
+                                       weatherReportPopularityTracker.recordPrefetch(popularCity.getCity(),
+                                                                                     popularCity.getCountryCode(),
+                                                                                     previousExpiry.get());
+                                   })
+                                   .doOnError(ex -> {
+                                       failedRefreshes.increment();
+                                       LOGGER.warn("Failed to prefetch the weather report of {}",
+                                                   WeatherReportCache.buildKey(popularCity.getCity(),
+                                                                               popularCity.getCountryCode()), ex);
+                                   })
+                                   .onErrorResume(ex -> Mono.empty())
+                                   .then();
+    }
+
+    /**
+     * A city whose weather report is no longer in the in-memory cache is not prefetched: its next request loads it.
+     */
+    private boolean isExpiringSoon(Optional<Long> expiry, long now) {
+        return expiry.map(time -> time - now <= leadTime).orElse(false);
+    }
+
+    private Optional<Long> findExpiry(PopularCity popularCity) {
+        return weatherReportCache.get(popularCity.getCity(), popularCity.getCountryCode())
+                                 .map(CachedWeatherReport::getTimestamp)
+                                 .map(timestamp -> timestamp + ONE_HOUR);
+    }
+
+    private Counter refreshCounter(String outcome) {
+        return Counter.builder("weather.report.prefetch.refreshes")
+                      .description("Weather reports refreshed by the prefetch scheduler")
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,80 @@
+package weatherapi.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import weatherapi.service.ApiKeyDetailService;
+import weatherapi.utility.BloomFilter;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bloom filter of the API keys which are not signed, so that a random API key is rejected without reading the
+ * database. Signed API keys are proven to have been issued by their signature instead, on any instance which shares
+ * the signing secret, so only the API keys issued before the keys were signed need to be in the filter. As those
+ * are no longer issued, the filter is built once at startup and rebuilt every rebuild-interval to forget the API
+ * keys which have been deleted since. A rebuild is published with one atomic reference swap.
+ */
+@Component
+@DependsOnDatabaseInitialization
+public class ApiKeyBloomFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiKeyBloomFilter.class);
+
+    @Autowired
+    private ApiKeyDetailService apiKeyDetailService;
+
+    @Value("${weather.api-key.bloom-filter.enabled:true}")
+    private boolean enabled;
+    @Value("${weather.api-key.bloom-filter.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+    @Value("${weather.api-key.bloom-filter.min-expected-keys:10000}")
+    private long minExpectedKeys;
+
+    private final AtomicReference<BloomFilter> bloomFilter = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * @param apiKey
+     * @return False if the API key has certainly not been issued, true if it must be checked against the database.
+     */
+    public boolean mightExist(String apiKey) {
+        BloomFilter current = bloomFilter.get();
+        return current == null || ApiKeySigner.isSigned(apiKey) || current.mightContain(apiKey);
+    }
+
+    /**
+     * Builds a new filter of the API keys which are not signed. The current filter is kept if the rebuild fails.
+     */
+    @Scheduled(fixedDelayString = "${weather.api-key.bloom-filter.rebuild-interval:3600000}",
+               initialDelayString = "${weather.api-key.bloom-filter.rebuild-interval:3600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // The number of all API keys is an upper bound of the unsigned ones
+            BloomFilter newBloomFilter = BloomFilter.create(Math.max(apiKeyDetailService.count(), minExpectedKeys),
+                                                            falsePositiveProbability);
+            long[] count = new long[1];
+            apiKeyDetailService.forEachUnsignedApiKey(apiKey -> {
+                newBloomFilter.put(apiKey);
+                count[0]++;
+            });
+            bloomFilter.set(newBloomFilter);
+            LOGGER.info("Loaded {} unsigned API keys into a Bloom filter of {} bits and {} hash functions",
+                        count[0], newBloomFilter.bitCount(), newBloomFilter.hashCount());
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to rebuild the API key Bloom filter, the current filter is kept", ex);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package weatherapi.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.utility.Utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
+
+/**
+ * Issues and verifies signed API keys. A signed API key is "wk_" followed by the URL-safe base64 of a version byte,
+ * the tier code, the issue timestamp, 12 random bytes and the first 16 bytes of their HMAC-SHA256. Forged, altered
+ * and expired API keys are therefore rejected with a few microseconds of CPU work, before the quota of the API key
+ * is read from the database.
+ * <p>
+ * The API keys issued before the keys were signed have no prefix and are only checked against the database, unless
+ * weather.api-key.legacy-keys-enabled is false.
+ */
+@Component
+public class ApiKeySigner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiKeySigner.class);
+
+    public static final String PREFIX = "wk_";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int RANDOM_BYTES = 12;
+    private static final int PAYLOAD_BYTES = 2 + Long.BYTES + RANDOM_BYTES;
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int SECRET_BYTES = 32;
+    private static final int ENCODED_LENGTH = PREFIX.length() + ((PAYLOAD_BYTES + SIGNATURE_BYTES) * 4 + 2) / 3;
+    // The last character encodes 4 bits followed by 2 zero bits, which the decoder ignores
+    private static final String LAST_CHARACTERS = "AEIMQUYcgkosw048";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${weather.api-key.signing-secret:}")
+    private String signingSecret;
+    @Value("${weather.api-key.max-age:7776000000}")
+    private long maxAge;
+    @Value("${weather.api-key.legacy-keys-enabled:true}")
+    private boolean legacyKeysEnabled;
+
+    // Mac instances are not thread-safe. They are cloned from the prototype and kept in a pool instead of a
+    // ThreadLocal, which a new virtual thread per request would never reuse. Signing never blocks, so the pool holds
+    // about as many Mac instances as there are threads signing at the same time
+    private Mac prototype;
+    private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void init() {
+        byte[] secret;
+        if (StringUtils.hasText(signingSecret)) {
+            secret = signingSecret.getBytes(StandardCharsets.UTF_8);
+            if (secret.length < SECRET_BYTES) {
+                LOGGER.warn("The API key signing secret is shorter than {} bytes", SECRET_BYTES);
+            }
+        } else {
+            LOGGER.warn("No API key signing secret is configured, the signed API keys are only valid until the "
+                        + "application restarts and only on this instance");
+            secret = Utils.randomBytes(SECRET_BYTES);
+        }
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+            macs.clear();
+            macs.add((Mac) prototype.clone());
+        } catch (GeneralSecurityException | CloneNotSupportedException ex) {
+            throw new IllegalStateException("Failed to initialise " + ALGORITHM, ex);
+        }
+    }
+
+    /**
+     * Issues a new signed API key.
+     * @param tier
+     * @param issuedAt In milliseconds since the epoch
+     * @return The API key.
+     */
+    public String sign(ApiKeyTier tier, long issuedAt) {
+        byte[] apiKey = new byte[PAYLOAD_BYTES + SIGNATURE_BYTES];
+        ByteBuffer.wrap(apiKey)
+                  .put(VERSION)
+                  .put((byte) tier.getCode())
+                  .putLong(issuedAt)
+                  .put(Utils.randomBytes(RANDOM_BYTES));
+        System.arraycopy(signature(apiKey), 0, apiKey, PAYLOAD_BYTES, SIGNATURE_BYTES);
+        return PREFIX + ENCODER.encodeToString(apiKey);
+    }
+
+    /**
+     * Verifies the signature and the age of a signed API key. Malformed input is never thrown on.
+     * @param apiKey
+     * @return The tier and issue timestamp of the API key, or nothing if it is not a valid signed API key.
+     */
+    public Optional<SignedApiKey> verify(String apiKey) {
+        // Only the canonical encoding is accepted, so that one API key cannot be written in several ways
+        if (!isSigned(apiKey) || apiKey.length() != ENCODED_LENGTH
+                || LAST_CHARACTERS.indexOf(apiKey.charAt(ENCODED_LENGTH - 1)) < 0) {
+            return Optional.empty();
+        }
+        byte[] decoded;
+        try {
+            decoded = DECODER.decode(apiKey.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+        if (decoded.length != PAYLOAD_BYTES + SIGNATURE_BYTES || decoded[0] != VERSION) {
+            return Optional.empty();
+        }
+        byte[] expectedSignature = signature(decoded);
+        byte[] actualSignature = new byte[SIGNATURE_BYTES];
+        System.arraycopy(decoded, PAYLOAD_BYTES, actualSignature, 0, SIGNATURE_BYTES);
+        // Constant-time comparison, so that the signature cannot be guessed byte by byte from the response times
+        if (!MessageDigest.isEqual(expectedSignature, actualSignature)) {
+            return Optional.empty();
+        }
+        ApiKeyTier tier = ApiKeyTier.fromCode(decoded[1]);
+        long issuedAt = ByteBuffer.wrap(decoded, 2, Long.BYTES).getLong();
+        long age = new Date().getTime() - issuedAt;
+        if (tier == null || age < 0 || age > maxAge) {
+            return Optional.empty();
+        }
+        return Optional.of(new SignedApiKey(tier, issuedAt));
+    }
+
+    /**
+     * Rejects the API key if it can be rejected without a database lookup: it is signed but forged, altered or
+     * expired, or it is not signed and unsigned API keys are disabled.
+     * @param apiKey
+     * @return The tier and issue timestamp of a signed API key, or nothing if the API key is not signed.
+     * @throws WeatherApiException if the API key is not valid.
+     */
+    public Optional<SignedApiKey> checkAcceptable(String apiKey) throws WeatherApiException {
+        if (isSigned(apiKey)) {
+            return Optional.of(verify(apiKey).orElseThrow(() -> new WeatherApiException(ERROR_API_KEY_NOT_VALID)));
+        }
+        if (!legacyKeysEnabled) {
+            throw new WeatherApiException(ERROR_API_KEY_NOT_VALID);
+        }
+        return Optional.empty();
+    }
+
+    public static boolean isSigned(String apiKey) {
+        return apiKey != null && apiKey.startsWith(PREFIX);
+    }
+
+    private byte[] signature(byte[] apiKey) {
+        Mac mac = borrowMac();
+        byte[] signature;
+        try {
+            mac.update(apiKey, 0, PAYLOAD_BYTES);
+            signature = mac.doFinal();
+        } finally {
+            // doFinal resets the Mac, and a Mac which failed part way is reset before it is used again
+            mac.reset();
+            macs.offer(mac);
+        }
+        byte[] truncated = new byte[SIGNATURE_BYTES];
+        System.arraycopy(signature, 0, truncated, 0, SIGNATURE_BYTES);
+        return truncated;
+    }
+
+    private Mac borrowMac() {
+        Mac mac = macs.poll();
+        if (mac != null) {
+            return mac;
+        }
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            // The prototype has already been cloned once by init
+            throw new IllegalStateException("Failed to clone " + ALGORITHM, ex);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package weatherapi.security;
+
+/**
+ * The tier of an API key. Its code is embedded in signed API keys, so codes must never be reused.
+ */
+public enum ApiKeyTier {
+
+    FREE(0),
+    STANDARD(1),
+    PREMIUM(2);
+
+    private final int code;
+
+    ApiKeyTier(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param code
+     * @return The tier of the code, or null if the code is unknown.
+     */
+    public static ApiKeyTier fromCode(int code) {
+        for (ApiKeyTier tier : values()) {
+            if (tier.code == code) {
+                return tier;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package weatherapi.security;
+
+/**
+ * The issue timestamp and tier embedded in an API key whose signature has been verified.
+ */
+public final class SignedApiKey {
+
+    private final ApiKeyTier tier;
+    private final long issuedAt;
+
+    SignedApiKey(ApiKeyTier tier, long issuedAt) {
+        this.tier = tier;
+        this.issuedAt = issuedAt;
+    }
+
+    public ApiKeyTier getTier() {
+        return tier;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+}
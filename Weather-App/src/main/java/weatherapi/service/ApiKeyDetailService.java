@@ -1,12 +1,62 @@
 package weatherapi.service;
 
 import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeyTier;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ApiKeyDetailService {
 
     ApiKeyDetail save(ApiKeyDetail apiKeyDetail);
+    void saveUsage(List<ApiKeyDetail> apiKeyDetails);
+
+    /**
+     * Inserts new API keys with JDBC batch inserts in one transaction, so that either all or none of them are saved.
+     * @param apiKeyDetails
+     * @return The saved API keys.
+     */
+    List<ApiKeyDetail> saveAll(List<ApiKeyDetail> apiKeyDetails);
+
+    /**
+     * Issues new signed API keys of a tier which all start their window now, and saves them with {@link #saveAll}.
+     * @param count
+     * @param tier
+     * @return The saved API keys.
+     */
+    List<ApiKeyDetail> provision(int count, ApiKeyTier tier);
     Optional<ApiKeyDetail> findByApiKey(String apiKey);
+
+    /**
+     * @return The number of API keys in the database.
+     */
+    long count();
+
+    /**
+     * Calls the action with each API key which is not signed, streaming them from the database.
+     */
+    void forEachUnsignedApiKey(Consumer<String> action);
     void delete(String apiKey);
+
+    /**
+     * Consumes up to the wanted calls of an API key within its fixed window with one atomic update of the database.
+     * @param window In milliseconds
+     * @param spentWhenExhausted False if the API key restarts its window after it reached its limit.
+     * @return The number of calls consumed, fewer than wanted when the API key is about to reach its limit, or 0 if
+     * the API key does not exist or has no calls left.
+     */
+    int consumeCalls(String apiKey, int calls, int limit, long window, boolean spentWhenExhausted);
+    void releaseCalls(String apiKey, int calls);
+
+    /**
+     * Finds up to batchSize API keys of a tier which have reached the limit or have not been used since unusedSince.
+     */
+    List<String> findSpentApiKeys(ApiKeyTier tier, int limit, long unusedSince, int batchSize);
+
+    /**
+     * Deletes the spent API keys of a tier, except those which have been used since they were found.
+     * @return The API keys which were deleted.
+     */
+    List<String> deleteSpentApiKeys(List<String> apiKeys, ApiKeyTier tier, int limit, long unusedSince);
 }
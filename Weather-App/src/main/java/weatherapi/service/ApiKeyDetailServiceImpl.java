@@ -1,30 +1,104 @@
 package weatherapi.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import weatherapi.entity.ApiKeyDetail;
 import weatherapi.repository.ApiKeyRepository;
+import weatherapi.security.ApiKeySigner;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.utility.Utils;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class ApiKeyDetailServiceImpl implements ApiKeyDetailService {
 
     @Autowired
     private ApiKeyRepository apiKeyDao;
+    @Autowired
+    private ApiKeySigner apiKeySigner;
+
+    @Value("${weather.api-key.provisioning.batch-size:1000}")
+    private int insertBatchSize;
 
     @Override
     public ApiKeyDetail save(ApiKeyDetail apiKeyDetail) {
         return apiKeyDao.save(apiKeyDetail);
     }
 
+    @Override
+    @Transactional
+    public List<ApiKeyDetail> saveAll(List<ApiKeyDetail> apiKeyDetails) {
+        if (!apiKeyDetails.isEmpty()) {
+            apiKeyDao.insertAll(apiKeyDetails, insertBatchSize);
+        }
+        return apiKeyDetails;
+    }
+
+    @Override
+    public List<ApiKeyDetail> provision(int count, ApiKeyTier tier) {
+        long now = new Date().getTime();
+        List<ApiKeyDetail> apiKeyDetails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ApiKeyDetail apiKeyDetail = Utils.buildApiKeyDetail(apiKeySigner.sign(tier, now), now);
+            apiKeyDetail.setTier(tier);
+            apiKeyDetails.add(apiKeyDetail);
+        }
+        return saveAll(apiKeyDetails);
+    }
+
+    @Override
+    public void saveUsage(List<ApiKeyDetail> apiKeyDetails) {
+        if (!apiKeyDetails.isEmpty()) {
+            apiKeyDao.updateUsage(apiKeyDetails);
+        }
+    }
+
     @Override
     public Optional<ApiKeyDetail> findByApiKey(String apiKey) {
         return apiKeyDao.findById(apiKey);
     }
 
+    @Override
+    public long count() {
+        return apiKeyDao.count();
+    }
+
+    @Override
+    public void forEachUnsignedApiKey(Consumer<String> action) {
+        apiKeyDao.forEachUnsignedApiKey(action);
+    }
+
     @Override
     public void delete(String apiKey) {
         apiKeyDao.deleteById(apiKey);
     }
+
+    @Override
+    public int consumeCalls(String apiKey, int calls, int limit, long window, boolean spentWhenExhausted) {
+        long now = new Date().getTime();
+        return apiKeyDao.consumeCalls(apiKey, calls, limit, now, now - window, spentWhenExhausted);
+    }
+
+    @Override
+    public void releaseCalls(String apiKey, int calls) {
+        apiKeyDao.releaseCalls(apiKey, calls);
+    }
+
+    @Override
+    public List<String> findSpentApiKeys(ApiKeyTier tier, int limit, long unusedSince, int batchSize) {
+        return apiKeyDao.findSpentApiKeys(tier, limit, unusedSince, PageRequest.of(0, batchSize));
+    }
+
+    @Override
+    public List<String> deleteSpentApiKeys(List<String> apiKeys, ApiKeyTier tier, int limit, long unusedSince) {
+        return apiKeyDao.deleteSpentApiKeys(apiKeys, tier, limit, unusedSince);
+    }
 }
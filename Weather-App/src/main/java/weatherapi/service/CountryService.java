@@ -4,5 +4,16 @@ import java.util.Optional;
 
 public interface CountryService {
 
+    /**
+     * Finds the country code of a country name, ISO alpha-2 code or alias such as "UK", ignoring case.
+     * @param countryName
+     * @return The country code, or nothing if the name is unknown.
+     */
     Optional<String> findCountryCode(String countryName);
+
+    /**
+     * Reloads the countries and their aliases without blocking the lookups in progress.
+     * @return The number of names, ISO codes and aliases which can be looked up.
+     */
+    int reload();
 }
@@ -1,33 +1,131 @@
 package weatherapi.service;
 
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 import weatherapi.entity.Country;
+import weatherapi.entity.CountryAlias;
+import weatherapi.repository.CountryAliasRepository;
 import weatherapi.repository.CountryRepository;
+import weatherapi.utility.CountryCsvReader;
+import weatherapi.utility.CountryIndex;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Looks up country codes in an immutable country index. A reload builds a new index off to the side and publishes
+ * it with one atomic reference swap, so lookups never lock and never see a half-built index, and a reload which
+ * fails keeps the current index.
+ * <p>
+ * The countries are read from the H2 database, or from the data file when one is configured. The data file is
+ * checked for changes every reload-check-interval and reloaded when it has been modified.
+ */
 @Service
+@DependsOnDatabaseInitialization
 public class CountryServiceImpl implements CountryService {
 
-    private static List<Country> countries;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CountryServiceImpl.class);
+
     @Autowired
     private CountryRepository countryDao;
+    @Autowired
+    private CountryAliasRepository countryAliasDao;
+
+    @Value("${weather.country.data-file:}")
+    private String countryDataFile;
+    @Value("${weather.country.alias-file:}")
+    private String countryAliasFile;
+
+    private final AtomicReference<CountryIndex> countryIndex = new AtomicReference<>();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private long dataFileLastModified;
+
+    /**
+     * Builds the country index once at startup.
+     */
+    @PostConstruct
+    public void init() {
+        reload();
+    }
 
     @Override
     public Optional<String> findCountryCode(String countryName) {
-        if (CollectionUtils.isEmpty(countries)) {
-            countries = countryDao.findAll();
+        return countryIndex.get().findCountryCode(countryName);
+    }
+
+    @Override
+    public int reload() {
+        reloadLock.lock();
+        try {
+            long lastModified = lastModified();
+            List<Country> countries;
+            List<CountryAlias> countryAliases;
+            if (StringUtils.hasText(countryDataFile)) {
+                countries = CountryCsvReader.readCountries(Path.of(countryDataFile));
+            } else {
+                countries = countryDao.findAll();
+            }
+            if (StringUtils.hasText(countryAliasFile)) {
+                countryAliases = CountryCsvReader.readCountryAliases(Path.of(countryAliasFile));
+            } else {
+                countryAliases = countryAliasDao.findAll();
+            }
+            if (countries.isEmpty()) {
+                throw new IllegalStateException("No countries found, the current country index is kept");
+            }
+            CountryIndex newCountryIndex = CountryIndex.of(countries, countryAliases);
+            countryIndex.set(newCountryIndex);
+            dataFileLastModified = lastModified;
+            LOGGER.info("Loaded {} countries and {} country aliases", countries.size(), countryAliases.size());
+            return newCountryIndex.size();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the countries when the data file or the alias file has been modified since the last reload.
+     */
+    @Scheduled(fixedDelayString = "${weather.country.reload-check-interval:60000}",
+               initialDelayString = "${weather.country.reload-check-interval:60000}")
+    public void reloadIfModified() {
+        if (!StringUtils.hasText(countryDataFile) && !StringUtils.hasText(countryAliasFile)) {
+            return;
+        }
+        try {
+            if (lastModified() != dataFileLastModified) {
+                reload();
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to reload the countries, the current country index is kept", ex);
+        }
+    }
+
+    private long lastModified() {
+        return Math.max(lastModified(countryDataFile), lastModified(countryAliasFile));
+    }
+
+    private static long lastModified(String file) {
+        if (!StringUtils.hasText(file)) {
+            return 0;
         }
-        Country country = countries.stream()
-                                   .filter(countryEntity -> countryEntity.getCountryName().toLowerCase().equals(countryName.toLowerCase()))
-                                   .findAny()
-                                   .orElse(null);
-        if (country != null) {
-            return Optional.of(country.getCountryCode());
+        try {
+            return Files.getLastModifiedTime(Path.of(file)).toMillis();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read the last modified time of " + file, ex);
         }
-        return Optional.empty();
     }
 }
@@ -3,11 +3,27 @@ package weatherapi.service;
 import weatherapi.entity.WeatherReportDetail;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface WeatherReportDaoService {
 
+    /**
+     * Inserts the weather report of its city and country code, or replaces the existing one, in one statement.
+     * @param weatherReportDetails
+     * @return The saved weather report.
+     */
     WeatherReportDetail saveOrUpdate(WeatherReportDetail weatherReportDetails);
-    List<WeatherReportDetail> findByCityAndCountry(String city, String country);
-    void deleteAllById(List<Long> id);
+    Optional<WeatherReportDetail> findByCityAndCountryCode(String city, String countryCode);
     void delete(Long id);
+
+    /**
+     * Finds up to batchSize weather reports which were saved before expiredBefore.
+     */
+    List<Long> findExpiredIds(long expiredBefore, int batchSize);
+
+    /**
+     * Deletes the expired weather reports, except those which have been refreshed since they were found.
+     * @return The number of weather reports deleted.
+     */
+    int deleteExpired(List<Long> ids, long expiredBefore);
 }
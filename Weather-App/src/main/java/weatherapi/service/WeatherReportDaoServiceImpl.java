@@ -1,15 +1,18 @@
 package weatherapi.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import weatherapi.entity.WeatherReportDetail;
 import weatherapi.repository.WeatherReportRepository;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 import static weatherapi.utility.Utils.capitaliseString;
+import static weatherapi.utility.Utils.normaliseKey;
 
 @Service
 public class WeatherReportDaoServiceImpl implements WeatherReportDaoService {
@@ -20,27 +23,34 @@ public class WeatherReportDaoServiceImpl implements WeatherReportDaoService {
     @Override
     public WeatherReportDetail saveOrUpdate(@NonNull WeatherReportDetail weatherReportDetail) {
 
-        if (weatherReportDetail != null && StringUtils.hasText(weatherReportDetail.getCity()) && StringUtils.hasText(weatherReportDetail.getCountry())) {
-            capitaliseString(weatherReportDetail.getCity());
-            weatherReportDetail.setCity(capitaliseString(weatherReportDetail.getCity()));
-            weatherReportDetail.setCountry(capitaliseString(weatherReportDetail.getCountry()));
-        }
-        return weatherReportDao.save(weatherReportDetail);
+        weatherReportDetail.setCityKey(normaliseKey(weatherReportDetail.getCity()));
+        weatherReportDetail.setCountryCode(weatherReportDetail.getCountryCode().toUpperCase(Locale.ROOT));
+        weatherReportDetail.setCity(capitaliseString(weatherReportDetail.getCity()));
+        weatherReportDetail.setCountry(capitaliseString(weatherReportDetail.getCountry()));
+        weatherReportDao.upsert(weatherReportDetail.getCityKey(), weatherReportDetail.getCountryCode(),
+                                weatherReportDetail.getCity(), weatherReportDetail.getCountry(),
+                                weatherReportDetail.getDescription(), weatherReportDetail.getTimestamp());
+        return weatherReportDetail;
     }
 
     @Override
-    public List<WeatherReportDetail> findByCityAndCountry(String city, String country) {
-        return weatherReportDao.findByAllIgnoreCaseCityAndCountry(city, country);
+    public Optional<WeatherReportDetail> findByCityAndCountryCode(String city, String countryCode) {
+        return weatherReportDao.findByCityKeyAndCountryCode(normaliseKey(city), countryCode.toUpperCase(Locale.ROOT));
     }
 
     @Override
-    public void deleteAllById(List<Long> ids) {
-        weatherReportDao.deleteAllById(ids);
+    public void delete(Long id) {
+        weatherReportDao.deleteById(id);
     }
 
     @Override
-    public void delete(Long id) {
-        weatherReportDao.deleteById(id);
+    public List<Long> findExpiredIds(long expiredBefore, int batchSize) {
+        return weatherReportDao.findExpiredIds(expiredBefore, PageRequest.of(0, batchSize));
+    }
+
+    @Override
+    public int deleteExpired(List<Long> ids, long expiredBefore) {
+        return weatherReportDao.deleteExpired(ids, expiredBefore);
     }
 
 }
@@ -0,0 +1,15 @@
+package weatherapi.service;
+
+import reactor.core.publisher.Mono;
+import weatherapi.model.WeatherReport;
+
+public interface WeatherReportService {
+
+    /**
+     * Gets the weather report of a city from the cache, the H2 database or the Open Weather Service.
+     * @return The weather report, always with the timestamp it was fetched at.
+     */
+    WeatherReport getWeatherReport(String city, String country, String countryCode);
+    Mono<WeatherReport> getWeatherReportAsync(String city, String country, String countryCode);
+    Mono<WeatherReport> refreshWeatherReportAsync(String city, String country, String countryCode);
+}
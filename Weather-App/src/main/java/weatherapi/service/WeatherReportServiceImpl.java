@@ -0,0 +1,236 @@
+package weatherapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import weatherapi.cache.CachedWeatherReport;
+import weatherapi.cache.WeatherReportCache;
+import weatherapi.entity.WeatherReportDetail;
+import weatherapi.exception.WeatherApiServiceUnavailableException;
+import weatherapi.factory.WeatherReportAbstractFactory;
+import weatherapi.factory.WeatherReportFactory;
+import weatherapi.metrics.WeatherReportMetrics;
+import weatherapi.metrics.WeatherReportMetrics.CacheOutcome;
+import weatherapi.metrics.WeatherReportMetrics.Stage;
+import weatherapi.model.WeatherReport;
+import weatherapi.scheduler.WeatherReportPopularityTracker;
+import weatherapi.utility.SingleFlight;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static weatherapi.utility.Utils.hasWeatherReportTimestampExpired;
+
+@Service
+public class WeatherReportServiceImpl implements WeatherReportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeatherReportServiceImpl.class);
+
+    @Autowired
+    private WeatherReportDaoService weatherReportDaoService;
+    @Autowired
+    private WeatherReportAbstractFactory weatherReportFactory;
+    @Autowired
+    private WeatherReportCache weatherReportCache;
+    @Autowired
+    private WeatherReportPopularityTracker weatherReportPopularityTracker;
+    @Autowired
+    private WeatherReportMetrics weatherReportMetrics;
+
+    @Value("${weather.report.stale-grace-period:0}")
+    private long staleGracePeriod;
+
+    // Concurrent cache misses and background refreshes for the same city and country code share one database
+    // lookup, one call to the Open Weather Service and one saved weather report.
+    private final SingleFlight<String, CachedWeatherReport> singleFlight = new SingleFlight<>();
+
+    @Override
+    public WeatherReport getWeatherReport(String city, String country, String countryCode) {
+
+        // Serve the weather report from the in-memory cache when it has not expired or is within the grace period
+        Optional<CachedWeatherReport> cachedWeatherReport = getCachedWeatherReport(city, countryCode);
+        if (cachedWeatherReport.isPresent()) {
+            weatherReportPopularityTracker.recordRequest(city, country, countryCode);
+            return serveWeatherReport(city, country, countryCode, cachedWeatherReport.get()).toWeatherReport();
+        }
+        // The refresh of an expired weather report starts once the load has finished, so that it does not join it
+        CachedWeatherReport loadedWeatherReport = singleFlight.execute(WeatherReportCache.buildKey(city, countryCode),
+                                                                       () -> loadWeatherReport(city, country, countryCode));
+        WeatherReport weatherReport = serveWeatherReport(city, country, countryCode, loadedWeatherReport).toWeatherReport();
+        // Only the cities which have a weather report are counted, so that unknown cities are never prefetched
+        weatherReportPopularityTracker.recordRequest(city, country, countryCode);
+        return weatherReport;
+    }
+
+    /**
+     * Gets the weather report without blocking the calling thread. The database is accessed on the bounded elastic
+     * scheduler and the Open Weather Service is called with the non-blocking web client.
+     */
+    @Override
+    public Mono<WeatherReport> getWeatherReportAsync(String city, String country, String countryCode) {
+
+        Optional<CachedWeatherReport> cachedWeatherReport = getCachedWeatherReport(city, countryCode);
+        if (cachedWeatherReport.isPresent()) {
+            weatherReportPopularityTracker.recordRequest(city, country, countryCode);
+            return Mono.just(serveWeatherReport(city, country, countryCode, cachedWeatherReport.get()).toWeatherReport());
+        }
+        // Cancelling one subscriber must not cancel the load shared with the other callers
+        return Mono.defer(() -> Mono.fromFuture(singleFlight.executeAsync(WeatherReportCache.buildKey(city, countryCode),
+                                                                          () -> loadWeatherReportAsync(city, country, countryCode).toFuture()),
+                                                true))
+                   .doOnNext(weatherReport -> weatherReportPopularityTracker.recordRequest(city, country, countryCode))
+                   .map(weatherReport -> serveWeatherReport(city, country, countryCode, weatherReport).toWeatherReport());
+    }
+
+    /**
+     * Gets the weather report from the in-memory cache and counts the lookup as a hit, a stale hit or a miss.
+     */
+    private Optional<CachedWeatherReport> getCachedWeatherReport(String city, String countryCode) {
+        Optional<CachedWeatherReport> cachedWeatherReport = weatherReportCache.get(city, countryCode);
+        if (!cachedWeatherReport.isPresent()) {
+            weatherReportMetrics.recordCacheOutcome(CacheOutcome.MISS);
+        } else if (hasWeatherReportTimestampExpired(cachedWeatherReport.get().getTimestamp())) {
+            weatherReportMetrics.recordCacheOutcome(CacheOutcome.STALE);
+        } else {
+            weatherReportMetrics.recordCacheOutcome(CacheOutcome.HIT);
+        }
+        return cachedWeatherReport;
+    }
+
+    /**
+     * Gets the weather report from the H2 database, or from the Open Weather Service when there is no valid report
+     * in the database, and adds it to the in-memory cache.
+     */
+    private CachedWeatherReport loadWeatherReport(String city, String country, String countryCode) {
+        // Get weather report from the H2 database
+        Optional<WeatherReportDetail> storedWeatherReport = findStoredWeatherReport(city, countryCode);
+        Optional<CachedWeatherReport> existingWeatherReport = findValidWeatherReport(city, countryCode, storedWeatherReport);
+        if (existingWeatherReport.isPresent()) {
+            return existingWeatherReport.get();
+        }
+        // Call the Open Weather Service to get a new weather report.
+        WeatherReport weatherReport;
+        try {
+            weatherReport = WeatherReportFactory.getWeatherReport(weatherReportFactory, city, countryCode);
+        } catch (WeatherApiServiceUnavailableException ex) {
+            return findLastKnownWeatherReport(storedWeatherReport).orElseThrow(() -> ex);
+        }
+        return saveWeatherReport(city, country, countryCode, weatherReport.getDescription());
+    }
+
+    private Mono<CachedWeatherReport> loadWeatherReportAsync(String city, String country, String countryCode) {
+        return Mono.fromCallable(() -> findStoredWeatherReport(city, countryCode))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .flatMap(storedWeatherReport -> findValidWeatherReport(city, countryCode, storedWeatherReport)
+                           .map(Mono::just)
+                           .orElseGet(() -> fetchWeatherReportAsync(city, country, countryCode)
+                                   .onErrorResume(WeatherApiServiceUnavailableException.class,
+                                                  ex -> Mono.justOrEmpty(findLastKnownWeatherReport(storedWeatherReport))
+                                                            .switchIfEmpty(Mono.error(ex)))));
+    }
+
+    private Mono<CachedWeatherReport> fetchWeatherReportAsync(String city, String country, String countryCode) {
+        return WeatherReportFactory.getWeatherReportAsync(weatherReportFactory, city, countryCode)
+                                   .publishOn(Schedulers.boundedElastic())
+                                   .map(weatherReport -> saveWeatherReport(city, country, countryCode,
+                                                                           weatherReport.getDescription()));
+    }
+
+    /**
+     * Returns the weather report as it is. If it has expired but is still within the stale grace period,
+     * a new weather report is fetched from the Open Weather Service in the background. The last known weather
+     * report, which is served when the Open Weather Service is unavailable, is not refreshed.
+     */
+    private CachedWeatherReport serveWeatherReport(String city, String country, String countryCode,
+                                                   CachedWeatherReport weatherReport) {
+        if (hasWeatherReportTimestampExpired(weatherReport.getTimestamp())
+                && !hasWeatherReportTimestampExpired(weatherReport.getTimestamp(), staleGracePeriod)) {
+            refreshWeatherReport(city, country, countryCode);
+        }
+        return weatherReport;
+    }
+
+    private void refreshWeatherReport(String city, String country, String countryCode) {
+        refreshWeatherReportAsync(city, country, countryCode).subscribe(
+                weatherReport -> { },
+                ex -> LOGGER.warn("Failed to refresh the expired weather report of {}",
+                                  WeatherReportCache.buildKey(city, countryCode), ex));
+    }
+
+    /**
+     * Fetches a new weather report from the Open Weather Service and saves it, whether or not the current one has
+     * expired. A refresh which starts while a cache miss of the same city and country code is loading the weather
+     * report shares that load, and a cache miss which arrives during a refresh waits for it.
+     */
+    @Override
+    public Mono<WeatherReport> refreshWeatherReportAsync(String city, String country, String countryCode) {
+        String key = WeatherReportCache.buildKey(city, countryCode);
+        return Mono.defer(() -> Mono.fromFuture(singleFlight.executeAsync(key, () -> refreshWeatherReportFromUpstream(city, country, countryCode)),
+                                                true))
+                   .map(CachedWeatherReport::toWeatherReport);
+    }
+
+    private CompletableFuture<CachedWeatherReport> refreshWeatherReportFromUpstream(String city, String country,
+                                                                                   String countryCode) {
+        // The weather report is upserted, so the stored one does not have to be read first
+        return fetchWeatherReportAsync(city, country, countryCode).toFuture();
+    }
+
+    private Optional<WeatherReportDetail> findStoredWeatherReport(String city, String countryCode) {
+        long startTime = System.nanoTime();
+        try {
+            return weatherReportDaoService.findByCityAndCountryCode(city, countryCode);
+        } finally {
+            weatherReportMetrics.recordStage(Stage.DB_LOOKUP, startTime);
+        }
+    }
+
+    /**
+     * Returns the weather report in the H2 database if it has not expired, or has expired within the stale grace period.
+     */
+    private Optional<CachedWeatherReport> findValidWeatherReport(String city, String countryCode,
+                                                                 Optional<WeatherReportDetail> storedWeatherReport) {
+        if (storedWeatherReport.isPresent()
+                && !hasWeatherReportTimestampExpired(storedWeatherReport.get().getTimestamp(), staleGracePeriod)) {
+            WeatherReportDetail existingWeatherReport = storedWeatherReport.get();
+            weatherReportCache.put(city, countryCode, existingWeatherReport.getDescription(), existingWeatherReport.getTimestamp());
+            return Optional.of(new CachedWeatherReport(existingWeatherReport.getDescription(), existingWeatherReport.getTimestamp()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the weather report in the H2 database even if it has expired. It is returned when the
+     * Open Weather Service is unavailable, and is not added to the in-memory cache.
+     */
+    private Optional<CachedWeatherReport> findLastKnownWeatherReport(Optional<WeatherReportDetail> storedWeatherReport) {
+        return storedWeatherReport.map(weatherReport -> new CachedWeatherReport(weatherReport.getDescription(),
+                                                                                weatherReport.getTimestamp()));
+    }
+
+    /**
+     * Saves a new weather description to the H2 database, replacing the existing one of the city and country code,
+     * and adds it to the in-memory cache.
+     */
+    private CachedWeatherReport saveWeatherReport(String city, String country, String countryCode, String description) {
+        WeatherReportDetail weatherReportDetail = new WeatherReportDetail();
+        weatherReportDetail.setTimestamp(new Date().getTime());
+        weatherReportDetail.setCity(city);
+        weatherReportDetail.setCountry(country);
+        weatherReportDetail.setCountryCode(countryCode);
+        weatherReportDetail.setDescription(description);
+        long startTime = System.nanoTime();
+        try {
+            weatherReportDaoService.saveOrUpdate(weatherReportDetail);
+        } finally {
+            weatherReportMetrics.recordStage(Stage.PERSIST, startTime);
+        }
+        weatherReportCache.put(city, countryCode, description, weatherReportDetail.getTimestamp());
+        return new CachedWeatherReport(description, weatherReportDetail.getTimestamp());
+    }
+}
@@ -0,0 +1,103 @@
+package weatherapi.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings. It never answers false for a string which was put, and answers true for
+ * a string which was not put with about the false positive probability it was sized for. The bits are set with
+ * atomic updates, so strings can be put while other threads look them up.
+ * <p>
+ * The k bit positions of a string are derived from one 64-bit hash of its characters by double hashing.
+ */
+public final class BloomFilter {
+
+    private static final double LN_2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Creates a Bloom filter with the optimal number of bits and hash functions for the expected number of strings.
+     * @param expectedInsertions
+     * @param falsePositiveProbability Between 0 and 1, exclusive.
+     * @return The empty Bloom filter.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid false positive probability " + falsePositiveProbability);
+        }
+        long insertions = Math.max(expectedInsertions, 1);
+        long bitCount = Math.max(64, (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (LN_2 * LN_2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * LN_2));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    public void put(CharSequence value) {
+        long hash = hash(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(hash1 + i * hash2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * @param value
+     * @return False if the string has certainly not been put, true if it probably has.
+     */
+    public boolean mightContain(CharSequence value) {
+        long hash = hash(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(hash1 + i * hash2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private long index(int combinedHash) {
+        // Flip negative hashes instead of taking their absolute value, which overflows for Integer.MIN_VALUE
+        return (combinedHash < 0 ? ~combinedHash : combinedHash) % bitCount;
+    }
+
+    /**
+     * FNV-1a over the characters, finished with the MurmurHash3 mixer so that both halves of the hash are well
+     * distributed.
+     */
+    private static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
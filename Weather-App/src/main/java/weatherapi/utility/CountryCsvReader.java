@@ -0,0 +1,87 @@
+package weatherapi.utility;
+
+import weatherapi.entity.Country;
+import weatherapi.entity.CountryAlias;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads countries and country aliases from CSV files in the format of countrycode.csv (ID,COUNTRY_NAME,COUNTRY_CODE)
+ * and countryalias.csv (ID,ALIAS,COUNTRY_CODE). The first line is a header, and values cannot contain commas.
+ */
+public final class CountryCsvReader {
+
+    private CountryCsvReader() {
+    }
+
+    public static List<Country> readCountries(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return readCountries(inputStream);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read the countries from " + path, ex);
+        }
+    }
+
+    public static List<Country> readCountries(InputStream inputStream) {
+        List<Country> countries = new ArrayList<>();
+        for (String[] row : readRows(inputStream)) {
+            Country country = new Country();
+            country.setCountryName(row[1]);
+            country.setCountryCode(row[2]);
+            countries.add(country);
+        }
+        return countries;
+    }
+
+    public static List<CountryAlias> readCountryAliases(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return readCountryAliases(inputStream);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read the country aliases from " + path, ex);
+        }
+    }
+
+    public static List<CountryAlias> readCountryAliases(InputStream inputStream) {
+        List<CountryAlias> countryAliases = new ArrayList<>();
+        for (String[] row : readRows(inputStream)) {
+            CountryAlias countryAlias = new CountryAlias();
+            countryAlias.setAlias(row[1]);
+            countryAlias.setCountryCode(row[2]);
+            countryAliases.add(countryAlias);
+        }
+        return countryAliases;
+    }
+
+    private static List<String[]> readRows(InputStream inputStream) {
+        List<String[]> rows = new ArrayList<>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            // Skip the header
+            String line = reader.readLine();
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] row = line.split(",", -1);
+                if (row.length != 3 || row[1].isBlank() || row[2].isBlank()) {
+                    throw new IllegalStateException("Invalid country CSV line " + lineNumber + ": " + line);
+                }
+                rows.add(new String[]{row[0].trim(), row[1].trim(), row[2].trim()});
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,116 @@
+package weatherapi.utility;
+
+import weatherapi.entity.Country;
+import weatherapi.entity.CountryAlias;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable open-addressing hash index from a country name, ISO alpha-2 code or alias to the country code.
+ * Keys are case-folded once when the index is built, and a lookup folds the characters of the name while
+ * hashing and comparing them, so that it neither allocates nor scans the country list.
+ * When a key is claimed twice the first one wins: country names first, then ISO codes, then aliases.
+ */
+public final class CountryIndex {
+
+    private final String[] keys;
+    private final Optional<String>[] countryCodes;
+    private final int mask;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private CountryIndex(int expectedSize) {
+        // Keep the load factor at or below 0.5, so that probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 4 - 1);
+        keys = new String[capacity];
+        countryCodes = new Optional[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Builds the index of the countries and their aliases.
+     * @param countries
+     * @param countryAliases
+     * @return The index.
+     */
+    public static CountryIndex of(List<Country> countries, List<CountryAlias> countryAliases) {
+        CountryIndex countryIndex = new CountryIndex(countries.size() * 2 + countryAliases.size());
+        for (Country country : countries) {
+            countryIndex.put(country.getCountryName(), country.getCountryCode());
+        }
+        for (Country country : countries) {
+            countryIndex.put(country.getCountryCode(), country.getCountryCode());
+        }
+        for (CountryAlias countryAlias : countryAliases) {
+            countryIndex.put(countryAlias.getAlias(), countryAlias.getCountryCode());
+        }
+        return countryIndex;
+    }
+
+    /**
+     * Finds the country code of a country name, ISO alpha-2 code or alias, ignoring case.
+     * @param countryName
+     * @return The country code, or nothing if the name is unknown.
+     */
+    public Optional<String> findCountryCode(String countryName) {
+        if (countryName == null) {
+            return Optional.empty();
+        }
+        int length = countryName.length();
+        for (int slot = hash(countryName) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key.length() == length && countryName.regionMatches(true, 0, key, 0, length)) {
+                return countryCodes[slot];
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return The number of names, ISO codes and aliases in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void put(String name, String countryCode) {
+        if (name == null || name.isBlank() || countryCode == null) {
+            return;
+        }
+        String key = fold(name.trim());
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        countryCodes[slot] = Optional.of(countryCode);
+        size++;
+    }
+
+    private static String fold(String name) {
+        char[] chars = new char[name.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(name.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Folds a character the same way as {@link String#regionMatches(boolean, int, String, int, int)} compares it.
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + fold(name.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -3,54 +3,38 @@ package weatherapi.utility;
 import org.springframework.util.StringUtils;
 import weatherapi.entity.ApiKeyDetail;
 
+import java.security.SecureRandom;
 import java.util.Date;
-import java.util.Random;
+import java.util.Locale;
 import java.util.StringTokenizer;
 
 public final class Utils {
 
     public static long ONE_HOUR = 3600000L; // In milliseconds
-    private static int CALL_LIMIT = 5;
-    private static Random random = new Random(99999);
-    public static ApiKeyDetail buildApiKeyDetail() {
-        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
-        Date now = new Date();
-        apiKeyDetail.setTimestamp(now.getTime());
-        apiKeyDetail.setApiKey(findRandomChar(apiKeyDetail.getTimestamp()));
-        return apiKeyDetail;
-    }
+    // SecureRandom is thread-safe, and a per-thread instance would be seeded again for every virtual thread
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     /**
-     * Returns true if they API key has not been used 5 times within an hour. Otherwise, false is returned.
-     * @param apiKeyDetail
-     * @return true if they API key has not been used to 5 times within an hour. Otherwise, false is returned.
+     * Builds the API key detail of an API key which starts its one-hour window at the timestamp.
+     * @param apiKey
+     * @param timestamp
+     * @return The API key detail.
      */
-    public static boolean validateApiKey(ApiKeyDetail apiKeyDetail) {
-        if (apiKeyDetail != null) {
-            Date now = new Date();
-            Long diff = now.getTime() - apiKeyDetail.getTimestamp();
-            return diff < ONE_HOUR && apiKeyDetail.getNumberOfTimesUsed() < CALL_LIMIT;
-        }
-        return false;
+    public static ApiKeyDetail buildApiKeyDetail(String apiKey, long timestamp) {
+        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
+        apiKeyDetail.setTimestamp(timestamp);
+        apiKeyDetail.setApiKey(apiKey);
+        return apiKeyDetail;
     }
 
     /**
-     * Reset API key when it is more than one-hour old and has not reached its limit.
-     * @param apiKeyDetail
+     * @param count
+     * @return count bytes from a secure random generator.
      */
-    public static ApiKeyDetail resetTimestampAndCallCount(ApiKeyDetail apiKeyDetail) {
-
-        Date now = new Date();
-        long diff = now.getTime() - apiKeyDetail.getTimestamp().longValue();
-
-        if (diff > ONE_HOUR && apiKeyDetail.getNumberOfTimesUsed() < CALL_LIMIT) {
-            ApiKeyDetail newApiKeyDetail = new ApiKeyDetail();
-            newApiKeyDetail.setApiKey(apiKeyDetail.getApiKey());
-            newApiKeyDetail.setTimestamp(now.getTime());
-            newApiKeyDetail.setNumberOfTimesUsed(0);
-            return newApiKeyDetail;
-        }
-        return apiKeyDetail;
+    public static byte[] randomBytes(int count) {
+        byte[] randomBytes = new byte[count];
+        RANDOM.nextBytes(randomBytes);
+        return randomBytes;
     }
 
     /**
@@ -59,10 +43,20 @@ public final class Utils {
      * @return True if the weather report is less than one-hour old. Otherwise, false is returned.
      */
     public static boolean hasWeatherReportTimestampExpired(Long timestamp) {
+        return hasWeatherReportTimestampExpired(timestamp, 0L);
+    }
+
+    /**
+     * Validates the timestamp of a weather report which may still be served for a grace period after it has expired.
+     * @param timestamp
+     * @param gracePeriod In milliseconds
+     * @return True if the weather report is older than one hour plus the grace period. Otherwise, false is returned.
+     */
+    public static boolean hasWeatherReportTimestampExpired(Long timestamp, long gracePeriod) {
 
         Date now = new Date();
         Long diff = now.getTime() - timestamp;
-        return diff > ONE_HOUR;
+        return diff > ONE_HOUR + gracePeriod;
     }
 
     /**
@@ -84,9 +78,13 @@ public final class Utils {
         return stringBuilder.toString();
     }
 
-    private static String findRandomChar(long timestamp) {
-        long randomValue = random.nextLong();
-        return Long.toHexString(randomValue) + Long.toHexString(timestamp);
+    /**
+     * Normalises a city name to the key it is stored under in the H2 database.
+     * @param inputString
+     * @return The trimmed lower-case string.
+     */
+    public static String normaliseKey(String inputString) {
+        return inputString.trim().toLowerCase(Locale.ROOT);
     }
 
 }
@@ -8,18 +8,34 @@ AS
 SELECT *
 FROM CSVREAD('classpath:countrycode.csv');
 
+create table country_alias (
+  ID int not null AUTO_INCREMENT,
+  alias varchar(100) not null,
+  country_code varchar(2) not null,
+  PRIMARY KEY ( ID )
+)
+AS
+SELECT *
+FROM CSVREAD('classpath:countryalias.csv');
+
 create table api_key (
-  api_key varchar(50) not null,
+  api_key varchar(64) not null,
   timestamp long not null,
   number_of_time_used int not null,
+  tier varchar(16) default 'FREE' not null,
   PRIMARY KEY ( api_key )
 );
 
+-- city_key is the trimmed lower-case city and country_code the upper-case country code, so that one city
+-- has exactly one weather report whatever case or country alias it was requested with
 create table weather_report_details (
     ID int not null AUTO_INCREMENT,
+    city_key varchar(50) not null,
+    country_code varchar(2) not null,
     city varchar(50) not null,
     country varchar(50) not null,
     description varchar(100) not null,
     timestamp long not null,
-    PRIMARY KEY ( ID )
+    PRIMARY KEY ( ID ),
+    CONSTRAINT uk_weather_report_city_country UNIQUE ( city_key, country_code )
 )
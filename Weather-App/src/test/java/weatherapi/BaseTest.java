@@ -4,9 +4,23 @@ import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.utility.Utils;
+
+import java.util.Date;
+import java.util.HexFormat;
 
 @SpringBootTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @TestPropertySource("classpath:application-test.properties")
 public class BaseTest {
+
+    /**
+     * Builds the API key detail of a random unsigned API key, like the API keys issued before the keys were signed.
+     * @return The API key detail, whose window starts now.
+     */
+    public static ApiKeyDetail buildUnsignedApiKeyDetail() {
+        String apiKey = HexFormat.of().formatHex(Utils.randomBytes(16));
+        return Utils.buildApiKeyDetail(apiKey, new Date().getTime());
+    }
 }
@@ -0,0 +1,76 @@
+package weatherapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.security.ApiKeySigner;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.security.SignedApiKey;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+/**
+ * Measures the latency and allocation of the signature check which every call with a signed API key goes through
+ * before its quota is checked, for a valid and for an altered API key. The threads share the pool of Mac instances
+ * of the signer; run with -t to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ApiKeySignerBenchmark {
+
+    private ApiKeySigner apiKeySigner;
+    private String signedApiKey;
+    private String alteredApiKey;
+
+    @Setup
+    public void setUp() {
+        apiKeySigner = new ApiKeySigner();
+        ReflectionTestUtils.setField(apiKeySigner, "signingSecret", "a-signing-secret-of-at-least-32-bytes");
+        ReflectionTestUtils.setField(apiKeySigner, "maxAge", 90 * 24 * ONE_HOUR);
+        ReflectionTestUtils.setField(apiKeySigner, "legacyKeysEnabled", true);
+        apiKeySigner.init();
+        signedApiKey = apiKeySigner.sign(ApiKeyTier.PREMIUM, new Date().getTime());
+        char altered = signedApiKey.charAt(10) == 'A' ? 'B' : 'A';
+        alteredApiKey = signedApiKey.substring(0, 10) + altered + signedApiKey.substring(11);
+    }
+
+    @Benchmark
+    public Optional<SignedApiKey> verifySignedApiKey() {
+        return apiKeySigner.verify(signedApiKey);
+    }
+
+    @Benchmark
+    public Optional<SignedApiKey> verifyAlteredApiKey() {
+        return apiKeySigner.verify(alteredApiKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ApiKeySignerBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
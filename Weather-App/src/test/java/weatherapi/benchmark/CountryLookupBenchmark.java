@@ -0,0 +1,111 @@
+package weatherapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.entity.Country;
+import weatherapi.entity.CountryAlias;
+import weatherapi.repository.CountryAliasRepository;
+import weatherapi.repository.CountryRepository;
+import weatherapi.service.CountryServiceImpl;
+import weatherapi.utility.CountryCsvReader;
+import weatherapi.utility.CountryIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the latency and allocation per lookup of the linear stream over the country list which was used before
+ * with the country index, for a country at the start and at the end of the list and for an unknown country.
+ * The lookup through {@link CountryServiceImpl} adds the cost of reading the current index.
+ * Run the main method from the test classpath, the GC profiler reports the allocation per lookup as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountryLookupBenchmark {
+
+    @Param({"Albania", "zimbabwe", "Atlantis"})
+    private String countryName;
+
+    private List<Country> countries;
+    private CountryIndex countryIndex;
+    private CountryServiceImpl countryService;
+
+    @Setup
+    public void setUp() throws IOException {
+        ClassLoader classLoader = getClass().getClassLoader();
+        List<CountryAlias> countryAliases;
+        try (InputStream countryStream = classLoader.getResourceAsStream("countrycode.csv");
+             InputStream countryAliasStream = classLoader.getResourceAsStream("countryalias.csv")) {
+            countries = CountryCsvReader.readCountries(countryStream);
+            countryAliases = CountryCsvReader.readCountryAliases(countryAliasStream);
+        }
+        countryIndex = CountryIndex.of(countries, countryAliases);
+
+        // The repositories are only read when the index is built
+        CountryRepository countryRepository = mock(CountryRepository.class);
+        CountryAliasRepository countryAliasRepository = mock(CountryAliasRepository.class);
+        when(countryRepository.findAll()).thenReturn(countries);
+        when(countryAliasRepository.findAll()).thenReturn(countryAliases);
+        countryService = new CountryServiceImpl();
+        ReflectionTestUtils.setField(countryService, "countryDao", countryRepository);
+        ReflectionTestUtils.setField(countryService, "countryAliasDao", countryAliasRepository);
+        countryService.init();
+    }
+
+    /**
+     * Every country name of the list and the given name are lower-cased for each lookup.
+     */
+    @Benchmark
+    public Optional<String> linearStream() {
+        Country country = countries.stream()
+                                   .filter(countryEntity -> countryEntity.getCountryName().toLowerCase().equals(countryName.toLowerCase()))
+                                   .findAny()
+                                   .orElse(null);
+        if (country != null) {
+            return Optional.of(country.getCountryCode());
+        }
+        return Optional.empty();
+    }
+
+    @Benchmark
+    public Optional<String> countryIndex() {
+        return countryIndex.findCountryCode(countryName);
+    }
+
+    @Benchmark
+    public Optional<String> countryService() {
+        return countryService.findCountryCode(countryName);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(CountryLookupBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,198 @@
+package weatherapi.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the Open Weather Service, which answers every request with one of its recorded responses.
+ * It can add a latency with a random jitter to each response and fail a share of the requests with a 500 error.
+ * Point openweathermap.url at {@link #getUrl()} to call it instead of the real service.
+ */
+public class FakeOpenWeatherServer implements AutoCloseable {
+
+    private static final byte[] ERROR_RESPONSE = "{\"cod\":500,\"message\":\"Internal error\"}".getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // The headers and the body are written separately, which Nagle's algorithm and delayed ACKs would hold
+        // back by 40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final List<byte[]> responses;
+    private final long latency;
+    private final long latencyJitter;
+    private final double errorRate;
+    private final SplittableRandom seedRandom;
+    private final ThreadLocal<SplittableRandom> random;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private FakeOpenWeatherServer(Builder builder, List<byte[]> responses) throws IOException {
+        this.responses = responses;
+        this.latency = builder.latency;
+        this.latencyJitter = builder.latencyJitter;
+        this.errorRate = builder.errorRate;
+        // Each handler thread draws from its own generator, split from the seed so that runs can be repeated
+        this.seedRandom = new SplittableRandom(builder.seed);
+        this.random = ThreadLocal.withInitial(this::splitRandom);
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool();
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+    }
+
+    /**
+     * Starts a server without latency or errors on a free port of the loopback address.
+     * @param recordedResponse The class path resource of the response.
+     * @return The started server.
+     * @throws IOException
+     */
+    public static FakeOpenWeatherServer start(String recordedResponse) throws IOException {
+        return builder().responses(recordedResponse).start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The URL to set as openweathermap.url.
+     */
+    public String getUrl() {
+        return "http://" + httpServer.getAddress().getHostString() + ":" + httpServer.getAddress().getPort()
+               + "/data/2.5/weather";
+    }
+
+    /**
+     * @return The number of requests received, including the failed ones.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of requests failed with a 500 error.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    private void handle(HttpExchange exchange) {
+        requestCount.incrementAndGet();
+        SplittableRandom threadRandom = random.get();
+        try (exchange) {
+            long delay = latency + (latencyJitter > 0 ? threadRandom.nextLong(latencyJitter + 1) : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            byte[] response;
+            int status;
+            if (errorRate > 0 && threadRandom.nextDouble() < errorRate) {
+                errorCount.incrementAndGet();
+                response = ERROR_RESPONSE;
+                status = 500;
+            } else {
+                response = responses.get(threadRandom.nextInt(responses.size()));
+                status = 200;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SplittableRandom splitRandom() {
+        synchronized (seedRandom) {
+            return seedRandom.split();
+        }
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static class Builder {
+        private final List<String> recordedResponses = new ArrayList<>();
+        private long latency;
+        private long latencyJitter;
+        private double errorRate;
+        private long seed = 42;
+
+        /**
+         * @param recordedResponses The class path resources of the responses, one of which is returned at random.
+         */
+        public Builder responses(String... recordedResponses) {
+            this.recordedResponses.addAll(List.of(recordedResponses));
+            return this;
+        }
+
+        /**
+         * @param latency The minimum time taken by a response, in milliseconds.
+         * @param latencyJitter The maximum random time added to the latency, in milliseconds.
+         */
+        public Builder latency(long latency, long latencyJitter) {
+            this.latency = latency;
+            this.latencyJitter = latencyJitter;
+            return this;
+        }
+
+        /**
+         * @param errorRate The share of the requests which fail with a 500 error, between 0 and 1.
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Starts the server on a free port of the loopback address.
+         * @return The started server.
+         * @throws IOException
+         */
+        public FakeOpenWeatherServer start() throws IOException {
+            if (recordedResponses.isEmpty()) {
+                throw new IllegalStateException("No recorded response is configured");
+            }
+            List<byte[]> responses = new ArrayList<>();
+            for (String recordedResponse : recordedResponses) {
+                try (InputStream inputStream = FakeOpenWeatherServer.class.getClassLoader().getResourceAsStream(recordedResponse)) {
+                    if (inputStream == null) {
+                        throw new IOException("Recorded response " + recordedResponse + " not found");
+                    }
+                    responses.add(inputStream.readAllBytes());
+                }
+            }
+            return new FakeOpenWeatherServer(this, responses);
+        }
+    }
+}
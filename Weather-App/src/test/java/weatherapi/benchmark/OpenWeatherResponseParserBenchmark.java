@@ -0,0 +1,81 @@
+package weatherapi.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import weatherapi.factory.OpenWeatherResponseParser;
+import weatherapi.model.WeatherReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency and allocation per Open Weather Service response of the Gson tree parsing which was used
+ * before with the Jackson streaming parser, for each of the recorded responses. Run the main method from the test
+ * classpath, the GC profiler reports the allocation per response as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenWeatherResponseParserBenchmark {
+
+    @Param({"webclient-response-city-country-code.txt",
+            "webclient-response-no-city-name.txt",
+            "webclient-response-no-country-code.txt"})
+    private String recordedResponse;
+
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(recordedResponse)) {
+            response = inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * The response body is decoded to a String and a full Gson tree is built to read one field.
+     */
+    @Benchmark
+    public WeatherReport gsonTree() {
+        String body = new String(response, StandardCharsets.UTF_8);
+        JsonElement jsonElement = new JsonParser().parse(body);
+        JsonElement weatherElement = jsonElement.getAsJsonObject().get("weather");
+        JsonElement descParser = weatherElement.getAsJsonArray().get(0);
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription(descParser.getAsJsonObject().get("description").toString().replace("\"", ""));
+        return weatherReport;
+    }
+
+    @Benchmark
+    public WeatherReport jacksonStreaming() {
+        return OpenWeatherResponseParser.parseWeatherReport(response);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(OpenWeatherResponseParserBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,54 @@
+package weatherapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import weatherapi.utility.Utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency and allocation of the string helper which is called on every weather report save:
+ * capitalising a city or country name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    /**
+     * The names to capitalise, in their own state so that only the capitalisation is run once per name.
+     */
+    @State(Scope.Benchmark)
+    public static class Names {
+        @Param({"london", "rio de janeiro", "LLANFAIRPWLLGWYNGYLL"})
+        private String name;
+    }
+
+    @Benchmark
+    public String capitaliseString(Names names) {
+        return Utils.capitaliseString(names.name);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(UtilsBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,110 @@
+package weatherapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import weatherapi.WeatherApiApplication;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Measures a whole /weather/report request through the dispatcher servlet, the controller and the service, with the
+ * Open Weather Service replaced by {@link FakeOpenWeatherServer} so that the network latency of the real service is
+ * left out. A cached request is served from the in-memory cache, and an uncached request asks for a new city each
+ * time so that it also looks up the database, calls the fake service, parses its response and saves the report.
+ * <p>
+ * The API key is a premium key with a quota which cannot be reached during the run, and the background jobs are
+ * disabled so that they do not run during the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherApiControllerBenchmark {
+
+    private FakeOpenWeatherServer fakeOpenWeatherServer;
+    private ConfigurableApplicationContext applicationContext;
+    private MockMvc mockMvc;
+    private String apiKey;
+    private final AtomicLong cityCount = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        fakeOpenWeatherServer = FakeOpenWeatherServer.start("webclient-response-city-country-code.txt");
+        // Command line arguments, so that they override application.properties
+        applicationContext = new SpringApplicationBuilder(WeatherApiApplication.class)
+                .run("--server.port=0",
+                     "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                     "--spring.h2.console.enabled=false",
+                     "--logging.level.root=WARN",
+                     "--openweathermap.url=" + fakeOpenWeatherServer.getUrl(),
+                     "--weather.report.prefetch.enabled=false",
+                     "--weather.sweeper.enabled=false",
+                     "--weather.report.cache.max-size=1000000",
+                     "--weather.api-key.quota.premium.limit=1000000",
+                     "--weather.api-key.quota.premium.window=1000",
+                     "--weather.api-key.quota.premium.burst=1000000");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) applicationContext).build();
+        apiKey = applicationContext.getBean(ApiKeyDetailService.class)
+                                   .provision(1, ApiKeyTier.PREMIUM).get(0).getApiKey();
+        // Cache the weather report of the cached requests
+        cachedReport();
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+        fakeOpenWeatherServer.close();
+    }
+
+    @Benchmark
+    public String cachedReport() throws Exception {
+        return getWeatherReport("sydney,australia");
+    }
+
+    @Benchmark
+    public String uncachedReport() throws Exception {
+        return getWeatherReport("city " + cityCount.incrementAndGet() + ",australia");
+    }
+
+    private String getWeatherReport(String query) throws Exception {
+        String response = mockMvc.perform(get("/weather/report").param("q", query).param("apiKey", apiKey))
+                                 .andReturn().getResponse().getContentAsString();
+        if (!response.contains("clear sky")) {
+            throw new IllegalStateException("Unexpected response " + response);
+        }
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(WeatherApiControllerBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,341 @@
+package weatherapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import weatherapi.WeatherApiApplication;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Drives /weather/report of the whole application over HTTP, with the Open Weather Service replaced by
+ * {@link FakeOpenWeatherServer}, and reports the throughput and the p50, p99 and p999 latencies. The cities are
+ * requested with a Zipf distribution, so that a few cities get most of the requests as in production, and the
+ * requests are spread over many signed API keys.
+ * <p>
+ * Run it with mvn -Ploadtest test -Dloadtest.args="--loadtest.duration=120 --loadtest.concurrency=64". The options
+ * and their defaults are listed in {@link LoadTestOptions}. The other arguments, such as
+ * --weather.api-key.quota.write-behind.enabled=true, are passed to the application. The requests of the warm-up
+ * are not measured. With --loadtest.rate the requests are sent at a fixed rate and their latency is measured from
+ * the time they should have been sent, so that a slow response does not hide the requests queued behind it.
+ * The results are written as JSON to --loadtest.result-file.
+ */
+public class WeatherReportLoadTest {
+
+    private static final String[] COUNTRIES = {"australia", "united kingdom", "uk", "france", "japan",
+            "united states", "brazil", "germany", "india", "south africa"};
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
+    private final LoadTestOptions options;
+    private final Recorder recorder = new Recorder(MAX_LATENCY, 3);
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+                                                    .version(HttpClient.Version.HTTP_1_1)
+                                                    .connectTimeout(Duration.ofSeconds(5))
+                                                    .build();
+    private ZipfDistribution cityDistribution;
+    private List<String> apiKeys;
+    private String baseUrl;
+    private volatile long measureStart;
+    private volatile long measureEnd;
+
+    private WeatherReportLoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLinePropertySource<?> arguments = new SimpleCommandLinePropertySource(args);
+        new WeatherReportLoadTest(new LoadTestOptions(arguments)).run(args, arguments);
+        System.exit(0);
+    }
+
+    private void run(String[] args, CommandLinePropertySource<?> arguments) throws Exception {
+        try (FakeOpenWeatherServer fakeOpenWeatherServer = FakeOpenWeatherServer.builder()
+                .responses(options.upstreamResponses)
+                .latency(options.upstreamLatency, options.upstreamLatencyJitter)
+                .errorRate(options.upstreamErrorRate)
+                .seed(options.seed)
+                .start()) {
+
+            Map<String, String> defaults = new LinkedHashMap<>();
+            defaults.put("server.port", "0");
+            defaults.put("openweathermap.url", fakeOpenWeatherServer.getUrl());
+            defaults.put("spring.h2.console.enabled", "false");
+            defaults.put("logging.level.root", "WARN");
+            List<String> applicationArgs = new ArrayList<>(List.of(args));
+            // An argument given twice would be read as a list, so only the arguments which are not given are added
+            defaults.forEach((name, value) -> {
+                if (!arguments.containsProperty(name)) {
+                    applicationArgs.add("--" + name + "=" + value);
+                }
+            });
+
+            ServletWebServerApplicationContext applicationContext = (ServletWebServerApplicationContext)
+                    new SpringApplicationBuilder(WeatherApiApplication.class).run(applicationArgs.toArray(new String[0]));
+            try {
+                baseUrl = "http://localhost:" + applicationContext.getWebServer().getPort() + "/weather/report";
+                apiKeys = applicationContext.getBean(ApiKeyDetailService.class)
+                                            .provision(options.apiKeys, options.apiKeyTier).stream()
+                                            .map(ApiKeyDetail::getApiKey)
+                                            .collect(toList());
+                cityDistribution = new ZipfDistribution(options.cities, options.zipfExponent);
+                MeterRegistry meterRegistry = applicationContext.getBean(MeterRegistry.class);
+                Map<String, Object> result = drive(meterRegistry, fakeOpenWeatherServer);
+                report(result);
+            } finally {
+                applicationContext.close();
+            }
+        }
+    }
+
+    /**
+     * Sends the requests from the worker threads during the warm-up and the measurement.
+     * @return The results of the measurement.
+     */
+    private Map<String, Object> drive(MeterRegistry meterRegistry, FakeOpenWeatherServer fakeOpenWeatherServer)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        measureStart = start + TimeUnit.SECONDS.toNanos(options.warmup);
+        measureEnd = measureStart + TimeUnit.SECONDS.toNanos(options.duration);
+        SplittableRandom seedRandom = new SplittableRandom(options.seed);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            SplittableRandom random = seedRandom.split();
+            // The workers of a fixed rate are staggered so that their requests are spread evenly
+            long interval = options.rate > 0 ? TimeUnit.SECONDS.toNanos(options.concurrency) / options.rate : 0;
+            long firstRequest = start + interval * i / options.concurrency;
+            Thread worker = new Thread(() -> work(random, firstRequest, interval), "load-test-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        LockSupport.parkNanos(measureStart - System.nanoTime());
+        Map<String, Double> cacheOutcomesBefore = cacheOutcomes(meterRegistry);
+        long upstreamRequestsBefore = fakeOpenWeatherServer.getRequestCount();
+        long upstreamErrorsBefore = fakeOpenWeatherServer.getErrorCount();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Histogram histogram = recorder.getIntervalHistogram();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("options", options.toMap());
+        result.put("requests", histogram.getTotalCount());
+        result.put("throughput", histogram.getTotalCount() / (double) options.duration);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("unit", "ms");
+        latency.put("mean", histogram.getMean() / 1000.0);
+        latency.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        latency.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+        latency.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        latency.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        latency.put("max", histogram.getMaxValue() / 1000.0);
+        result.put("latency", latency);
+        Map<String, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((status, count) -> statuses.put(status == 0 ? "failed" : String.valueOf(status), count.sum()));
+        result.put("statuses", statuses);
+        Map<String, Double> cacheOutcomes = new LinkedHashMap<>();
+        cacheOutcomes(meterRegistry).forEach((outcome, count) -> cacheOutcomes.put(outcome, count - cacheOutcomesBefore.getOrDefault(outcome, 0.0)));
+        result.put("cache", cacheOutcomes);
+        result.put("upstreamRequests", fakeOpenWeatherServer.getRequestCount() - upstreamRequestsBefore);
+        result.put("upstreamErrors", fakeOpenWeatherServer.getErrorCount() - upstreamErrorsBefore);
+        return result;
+    }
+
+    private void work(SplittableRandom random, long firstRequest, long interval) {
+        long intendedStart = firstRequest;
+        while (true) {
+            long now = System.nanoTime();
+            if (interval > 0) {
+                if (intendedStart > now) {
+                    LockSupport.parkNanos(intendedStart - now);
+                }
+            } else {
+                intendedStart = now;
+            }
+            if (intendedStart >= measureEnd) {
+                return;
+            }
+            int status = send(random);
+            // Only the requests which were due after the warm-up are measured
+            if (intendedStart >= measureStart) {
+                long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                recorder.recordValue(Math.min(latency, MAX_LATENCY));
+                statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+            }
+            intendedStart += interval;
+        }
+    }
+
+    /**
+     * Requests the weather report of a city of the Zipf distribution with a random API key.
+     * @return The HTTP status, or 0 if the request failed.
+     */
+    private int send(SplittableRandom random) {
+        int city = cityDistribution.sample(random);
+        String query = "city " + city + "," + COUNTRIES[city % COUNTRIES.length];
+        String apiKey = apiKeys.get(random.nextInt(apiKeys.size()));
+        URI uri = URI.create(baseUrl + "?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8)
+                             + "&apiKey=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8));
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException ex) {
+            return 0;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private static Map<String, Double> cacheOutcomes(MeterRegistry meterRegistry) {
+        Map<String, Double> cacheOutcomes = new TreeMap<>();
+        for (Counter counter : meterRegistry.find("weather.report.cache").counters()) {
+            cacheOutcomes.put(counter.getId().getTag("outcome"), counter.count());
+        }
+        return cacheOutcomes;
+    }
+
+    private void report(Map<String, Object> result) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(result));
+        File resultFile = new File(options.resultFile);
+        if (resultFile.getParentFile() != null) {
+            resultFile.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(resultFile, result);
+        System.out.println("Load test result is saved to " + resultFile.getAbsolutePath());
+    }
+
+    /**
+     * Samples ranks from 0 to n - 1, where rank k is drawn with a probability proportional to 1 / (k + 1)^exponent.
+     */
+    static class ZipfDistribution {
+        private final double[] cumulativeProbabilities;
+
+        ZipfDistribution(int n, double exponent) {
+            cumulativeProbabilities = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, exponent);
+                cumulativeProbabilities[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulativeProbabilities[k] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double value = random.nextDouble();
+            int low = 0;
+            int high = cumulativeProbabilities.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulativeProbabilities[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * The options of the load test, given as --loadtest.name=value arguments.
+     */
+    static class LoadTestOptions {
+        // Measured seconds, after the warm-up seconds
+        private final long duration;
+        private final long warmup;
+        // Number of worker threads, each of which sends one request at a time
+        private final int concurrency;
+        // Requests per second of all the workers, or 0 to send the next request as soon as the previous one returns
+        private final long rate;
+        private final int cities;
+        private final double zipfExponent;
+        private final int apiKeys;
+        private final ApiKeyTier apiKeyTier;
+        // Latency and jitter of the fake Open Weather Service in milliseconds, and the share of its failed requests
+        private final long upstreamLatency;
+        private final long upstreamLatencyJitter;
+        private final double upstreamErrorRate;
+        private final String[] upstreamResponses;
+        private final long seed;
+        private final String resultFile;
+
+        LoadTestOptions(CommandLinePropertySource<?> arguments) {
+            duration = Long.parseLong(get(arguments, "duration", "60"));
+            warmup = Long.parseLong(get(arguments, "warmup", "10"));
+            concurrency = Integer.parseInt(get(arguments, "concurrency", "32"));
+            rate = Long.parseLong(get(arguments, "rate", "0"));
+            cities = Integer.parseInt(get(arguments, "cities", "5000"));
+            zipfExponent = Double.parseDouble(get(arguments, "zipf-exponent", "1.0"));
+            apiKeys = Integer.parseInt(get(arguments, "api-keys", "1000"));
+            apiKeyTier = ApiKeyTier.valueOf(get(arguments, "api-key-tier", "PREMIUM"));
+            upstreamLatency = Long.parseLong(get(arguments, "upstream-latency", "50"));
+            upstreamLatencyJitter = Long.parseLong(get(arguments, "upstream-latency-jitter", "20"));
+            upstreamErrorRate = Double.parseDouble(get(arguments, "upstream-error-rate", "0.01"));
+            upstreamResponses = get(arguments, "upstream-responses", "webclient-response-city-country-code.txt,"
+                    + "webclient-response-no-city-name.txt,webclient-response-no-country-code.txt").split(",");
+            seed = Long.parseLong(get(arguments, "seed", "42"));
+            resultFile = get(arguments, "result-file", "target/loadtest-result.json");
+            if (duration < 1 || concurrency < 1 || cities < 1 || apiKeys < 1) {
+                throw new IllegalArgumentException("The duration, concurrency, cities and api-keys must be positive");
+            }
+        }
+
+        private static String get(CommandLinePropertySource<?> arguments, String name, String defaultValue) {
+            String value = (String) arguments.getProperty("loadtest." + name);
+            return value != null ? value : defaultValue;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("duration", duration);
+            map.put("warmup", warmup);
+            map.put("concurrency", concurrency);
+            map.put("rate", rate);
+            map.put("cities", cities);
+            map.put("zipfExponent", zipfExponent);
+            map.put("apiKeys", apiKeys);
+            map.put("apiKeyTier", apiKeyTier);
+            map.put("upstreamLatency", upstreamLatency);
+            map.put("upstreamLatencyJitter", upstreamLatencyJitter);
+            map.put("upstreamErrorRate", upstreamErrorRate);
+            map.put("upstreamResponses", List.of(upstreamResponses));
+            map.put("seed", seed);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package weatherapi.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import weatherapi.BaseTest;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class WeatherReportCacheTest extends BaseTest {
+
+    @Autowired
+    private WeatherReportCache weatherReportCache;
+
+    @Test
+    public void get_WILL_returnWeatherReport_WHEN_cityAndCountryCodeMatchedIgnoringCase() {
+
+        // Given
+        long timestamp = new Date().getTime();
+        weatherReportCache.put("melbourne", "au", "light rain", timestamp);
+
+        // Run test
+        Optional<CachedWeatherReport> actual = weatherReportCache.get(" Melbourne ", "AU");
+
+        // Verify result
+        assertTrue(actual.isPresent());
+        assertEquals("light rain", actual.get().getDescription());
+        assertEquals(timestamp, actual.get().getTimestamp());
+    }
+
+    @Test
+    public void get_WILL_returnExpiredWeatherReport_WHEN_weatherReportIsWithinStaleGracePeriod() {
+
+        // Given
+        long timestamp = new Date().getTime() - ONE_HOUR - 5;
+        weatherReportCache.put("darwin", "au", "thunderstorm", timestamp);
+
+        // Run test
+        Optional<CachedWeatherReport> actual = weatherReportCache.get("darwin", "au");
+
+        // Verify result
+        assertTrue(actual.isPresent());
+        assertEquals(timestamp, actual.get().getTimestamp());
+    }
+
+    @Test
+    public void get_WILL_returnNothing_WHEN_weatherReportHasExpired() {
+
+        // Given
+        weatherReportCache.put("perth", "au", "clear sky", new Date().getTime() - 2 * ONE_HOUR);
+
+        // Run test
+        Optional<CachedWeatherReport> actual = weatherReportCache.get("perth", "au");
+
+        // Verify result
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void get_WILL_returnNothing_WHEN_weatherReportHasBeenInvalidated() {
+
+        // Given
+        weatherReportCache.put("hobart", "au", "few clouds", new Date().getTime());
+        weatherReportCache.invalidate("Hobart", "AU");
+
+        // Run test
+        Optional<CachedWeatherReport> actual = weatherReportCache.get("hobart", "au");
+
+        // Verify result
+        assertTrue(actual.isEmpty());
+    }
+}
@@ -3,35 +3,57 @@ package weatherapi.controller;
 
 import com.google.gson.Gson;
 import org.junit.Ignore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import weatherapi.BaseTest;
+import weatherapi.cache.CachedWeatherReport;
+import weatherapi.cache.WeatherReportCache;
 import weatherapi.entity.ApiKeyDetail;
 import weatherapi.entity.WeatherReportDetail;
 import weatherapi.factory.OpenWeatherServiceFactory;
+import weatherapi.factory.ResilientWeatherReportFactory;
 import weatherapi.factory.WeatherReportFactory;
+import weatherapi.metrics.WeatherReportMetrics;
 import weatherapi.model.WeatherReport;
+import weatherapi.quota.ApiKeyQuotaService;
+import weatherapi.quota.InMemoryApiKeyQuotaService;
+import weatherapi.quota.QuotaPolicies;
+import weatherapi.scheduler.WeatherReportPopularityTracker;
+import weatherapi.security.ApiKeyBloomFilter;
+import weatherapi.security.ApiKeySigner;
+import weatherapi.security.ApiKeyTier;
 import weatherapi.service.ApiKeyDetailService;
 import weatherapi.service.CountryService;
 import weatherapi.service.WeatherReportDaoService;
+import weatherapi.service.WeatherReportServiceImpl;
 import weatherapi.utility.Utils;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -40,22 +62,35 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static weatherapi.BaseTest.buildUnsignedApiKeyDetail;
 import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
 import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_REACHED_LIMIT;
+import static weatherapi.exception.WeatherApiError.ERROR_CITY_NAME_NOT_FOUND;
+import static weatherapi.exception.WeatherApiError.ERROR_COUNTRY_NAME_NOT_FOUND;
+import static weatherapi.exception.WeatherApiError.ERROR_INVALID_API_KEY_COUNT;
 import static weatherapi.exception.WeatherApiError.ERROR_INVALID_QUERY;
 import static weatherapi.exception.WeatherApiError.ERROR_MISSING_API_KEY;
 import static weatherapi.exception.WeatherApiError.ERROR_MISSING_CITY_OR_COUNTRY_NAME;
+import static weatherapi.exception.WeatherApiError.ERROR_WEATHER_SERVICE_UNAVAILABLE;
 import static weatherapi.utility.Utils.ONE_HOUR;
 import static weatherapi.utility.Utils.capitaliseString;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(value = WeatherApiController.class)
+@Import({WeatherReportServiceImpl.class, ResilientWeatherReportFactory.class, InMemoryApiKeyQuotaService.class,
+         QuotaPolicies.class, ApiKeySigner.class})
+@TestPropertySource(properties = "weather.api-key.quota.write-behind.enabled=true")
 public class WeatherApiControllerTest {
 
     @Autowired
@@ -69,6 +104,26 @@ public class WeatherApiControllerTest {
     private ApiKeyDetailService apiKeyDetailServiceMock;
     @MockBean
     private WeatherReportDaoService weatherReportDaoServiceMock;
+    @MockBean
+    private WeatherReportCache weatherReportCacheMock;
+    @MockBean
+    private WeatherReportPopularityTracker weatherReportPopularityTrackerMock;
+    @MockBean
+    private ApiKeyBloomFilter apiKeyBloomFilterMock;
+    @MockBean
+    private WeatherReportMetrics weatherReportMetricsMock;
+    @Autowired
+    private ResilientWeatherReportFactory resilientWeatherReportFactory;
+    @Autowired
+    private ApiKeyQuotaService apiKeyQuotaService;
+    @Autowired
+    private ApiKeySigner apiKeySigner;
+    @Autowired
+    private WeatherApiController weatherApiController;
+    @Autowired
+    private QuotaPolicies quotaPolicies;
+
+    private static final String API_KEY = "dce03eae01aa390619209140981";
 
     private String city = "sydney";
     private String country = "australia";
@@ -79,20 +134,19 @@ public class WeatherApiControllerTest {
         // Given
         MockHttpServletRequest request = new MockHttpServletRequest();
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
-        Optional<ApiKeyDetail> apiKeyDetail = Optional.of(Utils.buildApiKeyDetail());
+        Optional<ApiKeyDetail> apiKeyDetail = Optional.of(buildUnsignedApiKeyDetail());
 
         when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(apiKeyDetail);
         when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
-        when(weatherReportDaoServiceMock.findByCityAndCountry(anyString(), anyString())).thenReturn(new ArrayList<>());
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
         WeatherReport weatherReport = new WeatherReport();
         weatherReport.setDescription("clear sky");
         when(openWeatherServiceFactoryMock.getWeatherReport(anyString(), anyString())).thenReturn(weatherReport);
         when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
-        when(apiKeyDetailServiceMock.save(any(ApiKeyDetail.class))).thenReturn(new ApiKeyDetail());
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -108,40 +162,31 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
         verify(countryServiceMock, times(1)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(1)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(1)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
-    public void getWeatherReport_WILL_returnWeatherDescription_WHEN_thereIsMoreThanOneExistingWeatherReport() throws Exception {
+    public void getWeatherReport_WILL_returnWeatherDescription_WHEN_thereIsOneExistingWeatherReport() throws Exception {
 
         // Given
         MockHttpServletRequest request = new MockHttpServletRequest();
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
-        Optional<ApiKeyDetail> apiKeyDetail = Optional.of(Utils.buildApiKeyDetail());
 
-        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(apiKeyDetail);
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
         when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
-        // Set multiple existing weather reports
-        List<WeatherReportDetail> weatherReportList = new ArrayList<>();
-        weatherReportList.add(buildWeatherReportDetail("sydney", "australia"));
-        weatherReportList.add(buildWeatherReportDetail("sydney", "australia"));
-        when(weatherReportDaoServiceMock.findByCityAndCountry(anyString(), anyString())).thenReturn(weatherReportList);
-        doNothing().when(weatherReportDaoServiceMock).deleteAllById(any(List.class));
 
-        WeatherReport weatherReport = new WeatherReport();
-        weatherReport.setDescription("clear sky");
-        when(openWeatherServiceFactoryMock.getWeatherReport(anyString(), anyString())).thenReturn(weatherReport);
-        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
-        when(apiKeyDetailServiceMock.save(any(ApiKeyDetail.class))).thenReturn(new ApiKeyDetail());
+        // Set one existing weather report
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString()))
+                .thenReturn(Optional.of(buildWeatherReportDetail("sydney", "australia")));
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -151,40 +196,34 @@ public class WeatherApiControllerTest {
         // Verify
         assertNotNull(result);
         assertNotNull(result.getResponse());
-
-        Gson gson = new Gson();
-        String expected = gson.toJson(weatherReport);
+        String expected = "{\"description\":\"This is a unit test\"}";
         assertTrue(expected.equals(result.getResponse().getContentAsString()));
 
         verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
         verify(countryServiceMock, times(1)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountry(anyString(), anyString());
-        verify(weatherReportDaoServiceMock, times(1)).deleteAllById(any(List.class));
-        verify(openWeatherServiceFactoryMock, times(1)).getWeatherReport(anyString(), anyString());
-        verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(1)).save(any(ApiKeyDetail.class));
+        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountryCode(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
     }
 
     @Test
-    public void getWeatherReport_WILL_returnWeatherDescription_WHEN_thereIsOneExistingWeatherReport() throws Exception {
+    public void getWeatherReport_WILL_returnCachedWeatherDescription_WHEN_weatherReportIsCached() throws Exception {
 
         // Given
         MockHttpServletRequest request = new MockHttpServletRequest();
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
-        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(Utils.buildApiKeyDetail()));
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
         when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
-
-        // Set one existing weather report
-        List<WeatherReportDetail> weatherReportList = new ArrayList<>();
-        weatherReportList.add(buildWeatherReportDetail("sydney", "australia"));
-        when(weatherReportDaoServiceMock.findByCityAndCountry(anyString(), anyString())).thenReturn(weatherReportList);
-        when(apiKeyDetailServiceMock.save(any(ApiKeyDetail.class))).thenReturn(new ApiKeyDetail());
+        when(weatherReportCacheMock.get(anyString(), anyString()))
+                .thenReturn(Optional.of(new CachedWeatherReport("broken clouds", new Date().getTime())));
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -194,17 +233,18 @@ public class WeatherApiControllerTest {
         // Verify
         assertNotNull(result);
         assertNotNull(result.getResponse());
-        String expected = "{\"description\":\"This is a unit test\"}";
+        String expected = "{\"description\":\"broken clouds\"}";
         assertTrue(expected.equals(result.getResponse().getContentAsString()));
 
         verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
         verify(countryServiceMock, times(1)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportCacheMock, times(1)).get(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(1)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -214,24 +254,21 @@ public class WeatherApiControllerTest {
         MockHttpServletRequest request = new MockHttpServletRequest();
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
-        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(Utils.buildApiKeyDetail()));
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
         when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
 
-        // Set one existing weather report which has expired.
-        List<WeatherReportDetail> weatherReportList = new ArrayList<>();
+        // Set one existing weather report which has expired, and is older than the stale grace period.
         WeatherReportDetail weatherReportDetail = buildWeatherReportDetail("sydney", "australia");
-        weatherReportDetail.setTimestamp(weatherReportDetail.getTimestamp() - ONE_HOUR - 5);
-        weatherReportList.add(weatherReportDetail);
+        weatherReportDetail.setTimestamp(weatherReportDetail.getTimestamp() - 2 * ONE_HOUR);
 
-        when(weatherReportDaoServiceMock.findByCityAndCountry(anyString(), anyString())).thenReturn(weatherReportList);
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.of(weatherReportDetail));
         WeatherReport weatherReport = new WeatherReport();
         weatherReport.setDescription("clear sky");
         when(openWeatherServiceFactoryMock.getWeatherReport(anyString(), anyString())).thenReturn(weatherReport);
-        when(apiKeyDetailServiceMock.save(any(ApiKeyDetail.class))).thenReturn(new ApiKeyDetail());
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -247,12 +284,53 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
         verify(countryServiceMock, times(1)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(1)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(1)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
+        verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnExpiredWeatherDescription_WHEN_theExistingWeatherReportIsWithinStaleGracePeriod() throws Exception {
+
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+
+        // Set one existing weather report which has expired a moment ago.
+        WeatherReportDetail weatherReportDetail = buildWeatherReportDetail("sydney", "australia");
+        weatherReportDetail.setTimestamp(weatherReportDetail.getTimestamp() - ONE_HOUR - 5);
+
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.of(weatherReportDetail));
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync(anyString(), anyString())).thenReturn(Mono.just(weatherReport));
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .get(urlBuilder.toString())
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isOk()).andReturn();
+
+        // Verify the expired description is returned and a new one is fetched in the background
+        assertNotNull(result);
+        String expected = "{\"description\":\"This is a unit test\"}";
+        assertTrue(expected.equals(result.getResponse().getContentAsString()));
+
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, timeout(5000).times(1)).getWeatherReportAsync(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, timeout(5000).times(1)).saveOrUpdate(any(WeatherReportDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -262,14 +340,14 @@ public class WeatherApiControllerTest {
         MockHttpServletRequest request = new MockHttpServletRequest();
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
 
-        ApiKeyDetail apiKeyDetail = Utils.buildApiKeyDetail();
+        ApiKeyDetail apiKeyDetail = buildUnsignedApiKeyDetail();
         apiKeyDetail.setNumberOfTimesUsed(5);
         when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(apiKeyDetail));
         doNothing().when(apiKeyDetailServiceMock).delete(anyString());
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -284,12 +362,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(1)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -303,7 +381,7 @@ public class WeatherApiControllerTest {
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -318,12 +396,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -337,7 +415,7 @@ public class WeatherApiControllerTest {
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(city).append(",").append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(city).append(",").append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -352,12 +430,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -371,7 +449,7 @@ public class WeatherApiControllerTest {
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
-        urlBuilder.append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append(",").append(country).append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -386,12 +464,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -407,7 +485,7 @@ public class WeatherApiControllerTest {
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?");
-        urlBuilder.append("q=").append(city).append(",").append(country).append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append("q=").append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
 
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
@@ -423,12 +501,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -442,7 +520,7 @@ public class WeatherApiControllerTest {
 
         // Run test
         StringBuilder urlBuilder = new StringBuilder("/weather/report?");
-        urlBuilder.append("q=").append("&apiKey=dce03eae01aa390619209140981");
+        urlBuilder.append("q=").append("&apiKey=").append(API_KEY);
 
         MvcResult result = mockMvc.perform(MockMvcRequestBuilders
                                                    .get(urlBuilder.toString())
@@ -457,12 +535,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -491,12 +569,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -524,12 +602,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -557,12 +635,12 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
     }
 
     @Test
@@ -589,12 +667,552 @@ public class WeatherApiControllerTest {
 
         verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
         verify(countryServiceMock, times(0)).findCountryCode(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountry(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
         verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
         verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
-        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
         verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
-        verify(weatherReportDaoServiceMock, times(0)).deleteAllById(any(List.class));
+    }
+
+    @Test
+    public void getWeatherReportReactive_WILL_returnWeatherDescription_WHEN_thereIsNoExistingWeatherReport() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync(anyString(), anyString())).thenReturn(Mono.just(weatherReport));
+        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report/reactive?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .get(urlBuilder.toString())
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+        // Verify
+        assertNotNull(result);
+        Gson gson = new Gson();
+        String expected = gson.toJson(weatherReport);
+        assertTrue(expected.equals(result.getResponse().getContentAsString()));
+
+        verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
+        verify(countryServiceMock, times(1)).findCountryCode(anyString());
+        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountryCode(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, times(1)).getWeatherReportAsync(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
+    }
+
+    @Test
+    public void getWeatherReportReactive_WILL_returnServiceUnavailableError_WHEN_apiKeyNotValid() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.empty());
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report/reactive?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .get(urlBuilder.toString())
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isServiceUnavailable()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_API_KEY_NOT_VALID));
+        verify(countryServiceMock, times(0)).findCountryCode(anyString());
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReportAsync(anyString(), anyString());
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
+    }
+
+    @Test
+    public void getWeatherReports_WILL_returnOneItemPerQuery_WHEN_someQueriesFail() throws Exception {
+
+        // Given
+        ApiKeyDetail apiKeyDetail = buildUnsignedApiKeyDetail();
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(apiKeyDetail));
+        when(countryServiceMock.findCountryCode("australia")).thenReturn(Optional.of("au"));
+        when(countryServiceMock.findCountryCode("atlantis")).thenReturn(Optional.empty());
+        when(weatherReportCacheMock.get("sydney", "au"))
+                .thenReturn(Optional.of(new CachedWeatherReport("broken clouds", new Date().getTime())));
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync("melbourne", "au")).thenReturn(Mono.just(weatherReport));
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync("nowhere", "au"))
+                .thenReturn(Mono.error(new WebClientResponseException(404, "Not Found", null, null, null)));
+        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
+
+        // Run test
+        String body = "[\"sydney,australia\",\"melbourne,australia\",\"nowhere,australia\",\"atlantis city,atlantis\",\"perth\"]";
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .post("/weather/reports?apiKey=" + API_KEY)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content(body)
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+        // Verify
+        String expected = "[{\"query\":\"sydney,australia\",\"description\":\"broken clouds\"},"
+                + "{\"query\":\"melbourne,australia\",\"description\":\"clear sky\"},"
+                + "{\"query\":\"nowhere,australia\",\"error\":\"" + ERROR_CITY_NAME_NOT_FOUND + "\"},"
+                + "{\"query\":\"atlantis city,atlantis\",\"error\":\"" + ERROR_COUNTRY_NAME_NOT_FOUND + "\"},"
+                + "{\"query\":\"perth\",\"error\":\"" + ERROR_MISSING_CITY_OR_COUNTRY_NAME + "\"}]";
+        assertEquals(expected, result.getResponse().getContentAsString());
+
+        // 3 calls are reserved for the queries with a known country, then the unknown city is given back
+        flushApiKeyUsage();
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(savedUsage.capture());
+        assertEquals(2, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+
+        verify(apiKeyDetailServiceMock, times(1)).findByApiKey(anyString());
+        verify(openWeatherServiceFactoryMock, times(2)).getWeatherReportAsync(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
+        verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
+    }
+
+    @Test
+    public void getWeatherReports_WILL_fetchAndChargeOnce_WHEN_queriesAreDuplicated() throws Exception {
+
+        // Given
+        ApiKeyDetail apiKeyDetail = buildUnsignedApiKeyDetail();
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(apiKeyDetail));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync(anyString(), anyString())).thenReturn(Mono.just(weatherReport));
+        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
+
+        // Run test
+        String body = "[\"melbourne,australia\",\" Melbourne , Australia\",\"melbourne,australia\"]";
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .post("/weather/reports?apiKey=" + API_KEY)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content(body)
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+        // Verify
+        String expected = "[{\"query\":\"melbourne,australia\",\"description\":\"clear sky\"},"
+                + "{\"query\":\" Melbourne , Australia\",\"description\":\"clear sky\"},"
+                + "{\"query\":\"melbourne,australia\",\"description\":\"clear sky\"}]";
+        assertEquals(expected, result.getResponse().getContentAsString());
+        flushApiKeyUsage();
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(savedUsage.capture());
+        assertEquals(1, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+        verify(openWeatherServiceFactoryMock, times(1)).getWeatherReportAsync(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
+    }
+
+    @Test
+    public void getWeatherReports_WILL_rejectQueriesOverTheLimit_WHEN_apiKeyHasFewCallsLeft() throws Exception {
+
+        // Given
+        ApiKeyDetail apiKeyDetail = buildUnsignedApiKeyDetail();
+        apiKeyDetail.setNumberOfTimesUsed(4);
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(apiKeyDetail));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportCacheMock.get(anyString(), anyString()))
+                .thenReturn(Optional.of(new CachedWeatherReport("broken clouds", new Date().getTime())));
+
+        // Run test
+        String body = "[\"sydney,australia\",\"melbourne,australia\"]";
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .post("/weather/reports?apiKey=" + API_KEY)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content(body)
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+        // Verify
+        String expected = "[{\"query\":\"sydney,australia\",\"description\":\"broken clouds\"},"
+                + "{\"query\":\"melbourne,australia\",\"error\":\"" + ERROR_API_KEY_REACHED_LIMIT + "\"}]";
+        assertEquals(expected, result.getResponse().getContentAsString());
+        flushApiKeyUsage();
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(savedUsage.capture());
+        assertEquals(5, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void getWeatherReports_WILL_giveBackReservedCalls_WHEN_requestIsCancelled() throws Exception {
+
+        // Given
+        ApiKeyDetail apiKeyDetail = buildUnsignedApiKeyDetail();
+        apiKeyDetail.setNumberOfTimesUsed(1);
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(apiKeyDetail));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        Sinks.One<WeatherReport> upstream = Sinks.one();
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync(anyString(), anyString())).thenReturn(upstream.asMono());
+        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
+
+        // Run test
+        Disposable request = weatherApiController.getWeatherReports(List.of("sydney,australia", "melbourne,australia"), API_KEY)
+                                                 .subscribe();
+        verify(openWeatherServiceFactoryMock, timeout(1000).times(2)).getWeatherReportAsync(anyString(), anyString());
+        flushApiKeyUsage();
+        // Save the usage as soon as the reserved calls are given back
+        ReflectionTestUtils.setField(apiKeyQuotaService, "maxDirtyKeys", 1);
+        try {
+            request.dispose();
+
+            // Verify
+            ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+            verify(apiKeyDetailServiceMock, timeout(1000).times(2)).saveUsage(savedUsage.capture());
+            assertEquals(3, savedUsage.getAllValues().get(0).get(0).getNumberOfTimesUsed());
+            assertEquals(1, savedUsage.getAllValues().get(1).get(0).getNumberOfTimesUsed());
+        } finally {
+            ReflectionTestUtils.setField(apiKeyQuotaService, "maxDirtyKeys", 500);
+        }
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        upstream.tryEmitValue(weatherReport);
+    }
+
+    @Test
+    public void getWeatherReports_WILL_returnBadRequestError_WHEN_noQueriesExist() throws Exception {
+
+        // Run test
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .post("/weather/reports?apiKey=" + API_KEY)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content("[]")
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isBadRequest()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_MISSING_CITY_OR_COUNTRY_NAME));
+        verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
+    }
+
+    @Test
+    public void createApiKeys_WILL_returnFreeApiKeys_WHEN_countIsWithinLimit() throws Exception {
+
+        // Given
+        long now = new Date().getTime();
+        List<ApiKeyDetail> apiKeyDetails = List.of(Utils.buildApiKeyDetail(apiKeySigner.sign(ApiKeyTier.FREE, now), now),
+                                                   Utils.buildApiKeyDetail(apiKeySigner.sign(ApiKeyTier.FREE, now), now));
+        when(apiKeyDetailServiceMock.provision(2, ApiKeyTier.FREE)).thenReturn(apiKeyDetails);
+
+        // Run test
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .post("/weather/apikeys?count=2")
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isOk()).andReturn();
+
+        // Verify
+        verify(apiKeyDetailServiceMock, times(1)).provision(2, ApiKeyTier.FREE);
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(0)).saveUsage(anyList());
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains(apiKeyDetails.get(0).getApiKey()));
+        assertTrue(content.contains(apiKeyDetails.get(1).getApiKey()));
+        assertTrue(content.contains("\"tier\":\"FREE\""));
+    }
+
+    @Test
+    public void createApiKeys_WILL_returnBadRequestError_WHEN_countIsOverTheLimit() throws Exception {
+
+        // Run test
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .post("/weather/apikeys?count=10001")
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isBadRequest()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_INVALID_API_KEY_COUNT));
+        verify(apiKeyDetailServiceMock, times(0)).provision(anyInt(), any(ApiKeyTier.class));
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnExpiredWeatherReport_WHEN_circuitBreakerIsOpen() throws Exception {
+
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        WeatherReportDetail weatherReportDetail = buildWeatherReportDetail("sydney", "australia");
+        weatherReportDetail.setTimestamp(new Date().getTime() - 3 * ONE_HOUR);
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.of(weatherReportDetail));
+        resilientWeatherReportFactory.getCircuitBreaker().transitionToForcedOpenState();
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .get(urlBuilder.toString())
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isOk()).andReturn();
+
+        // Verify
+        assertEquals("{\"description\":\"This is a unit test\"}", result.getResponse().getContentAsString());
+
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).saveOrUpdate(any(WeatherReportDetail.class));
+        flushApiKeyUsage();
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(anyList());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnServiceUnavailable_WHEN_circuitBreakerIsOpenAndNoWeatherReportExists() throws Exception {
+
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        resilientWeatherReportFactory.getCircuitBreaker().transitionToForcedOpenState();
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .get(urlBuilder.toString())
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isServiceUnavailable()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_WEATHER_SERVICE_UNAVAILABLE));
+
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+
+        // The reserved call is given back
+        flushApiKeyUsage();
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(savedUsage.capture());
+        assertEquals(0, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnServiceUnavailableError_WHEN_apiKeyIsNotInBloomFilter() throws Exception {
+
+        // Given
+        when(apiKeyBloomFilterMock.mightExist(API_KEY)).thenReturn(false);
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(API_KEY);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .get(urlBuilder.toString())
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isServiceUnavailable()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_API_KEY_NOT_VALID));
+        verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
+        verify(countryServiceMock, times(0)).findCountryCode(anyString());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnServiceUnavailableError_WHEN_signedApiKeyIsForged() throws Exception {
+
+        // Given
+        String apiKey = apiKeySigner.sign(ApiKeyTier.FREE, new Date().getTime());
+        char last = apiKey.charAt(apiKey.length() - 1);
+        String forgedApiKey = apiKey.substring(0, apiKey.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(forgedApiKey);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .get(urlBuilder.toString())
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isServiceUnavailable()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_API_KEY_NOT_VALID));
+        verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
+        verify(countryServiceMock, times(0)).findCountryCode(anyString());
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+    }
+
+    @Test
+    public void getWeatherReports_WILL_returnServiceUnavailableError_WHEN_signedApiKeyHasExpired() throws Exception {
+
+        // Given
+        String apiKey = apiKeySigner.sign(ApiKeyTier.FREE, new Date().getTime() - 91 * 24 * ONE_HOUR);
+
+        // Run test
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders
+                                                        .post("/weather/reports?apiKey=" + apiKey)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .content("[\"sydney,australia\"]")
+                                                        .accept(MediaType.APPLICATION_JSON))
+                                       .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isServiceUnavailable()).andReturn();
+
+        // Verify
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_API_KEY_NOT_VALID));
+        verify(apiKeyDetailServiceMock, times(0)).findByApiKey(anyString());
+        verify(countryServiceMock, times(0)).findCountryCode(anyString());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnWeatherDescription_WHEN_signedApiKeyIsValid() throws Exception {
+
+        // Given
+        long now = new Date().getTime();
+        String apiKey = apiKeySigner.sign(ApiKeyTier.FREE, now);
+        when(apiKeyDetailServiceMock.findByApiKey(apiKey)).thenReturn(Optional.of(Utils.buildApiKeyDetail(apiKey, now)));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString()))
+                .thenReturn(Optional.of(buildWeatherReportDetail("sydney", "australia")));
+
+        // Run test
+        StringBuilder urlBuilder = new StringBuilder("/weather/report?q=");
+        urlBuilder.append(city).append(",").append(country).append("&apiKey=").append(apiKey);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                                                   .get(urlBuilder.toString())
+                                                   .accept(MediaType.APPLICATION_JSON))
+                                  .andExpect(status().isOk()).andReturn();
+
+        // Verify
+        assertEquals("{\"description\":\"This is a unit test\"}", result.getResponse().getContentAsString());
+        verify(apiKeyDetailServiceMock, times(1)).findByApiKey(apiKey);
+        flushApiKeyUsage();
+        apiKeyQuotaService.evict(apiKey);
+    }
+
+    @BeforeEach
+    public void allowApiKeys() {
+        when(apiKeyBloomFilterMock.mightExist(anyString())).thenReturn(true);
+    }
+
+    @AfterEach
+    public void resetCircuitBreakerAndApiKeyQuota() {
+        resilientWeatherReportFactory.getCircuitBreaker().transitionToClosedState();
+        flushApiKeyUsage();
+        apiKeyQuotaService.evict(API_KEY);
+    }
+
+    /**
+     * The usage of the API keys is saved in write-behind mode, so that each test can check the latest usage.
+     */
+    private void flushApiKeyUsage() {
+        ((InMemoryApiKeyQuotaService) apiKeyQuotaService).flushUsage();
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnCachingHeaders_WHEN_weatherReportIsReturned() throws Exception {
+
+        // Given
+        long timestamp = new Date().getTime() - 10 * 60 * 1000;
+        allowCachedWeatherReport(timestamp);
+
+        // Run test
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl()))
+                                  .andExpect(status().isOk()).andReturn();
+
+        // Verify result
+        String cacheControl = result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+        assertNotNull(cacheControl);
+        assertTrue(cacheControl, cacheControl.contains("public"));
+        long maxAge = Long.parseLong(cacheControl.replaceAll(".*max-age=(\\d+).*", "$1"));
+        assertTrue(String.valueOf(maxAge), maxAge > 2990 && maxAge <= 3000);
+        assertNotNull(result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(timestamp / 1000 * 1000, result.getResponse().getDateHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("{\"description\":\"mist\"}", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_returnNotModified_WHEN_weatherReportHasNotChanged() throws Exception {
+
+        // Given
+        allowCachedWeatherReport(new Date().getTime());
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl()))
+                                 .andExpect(status().isOk()).andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // Run test
+        MvcResult byETag = mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl())
+                                                                 .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                                  .andExpect(status().isNotModified()).andReturn();
+        MvcResult byLastModified = mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl())
+                                                                         .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                                          .andExpect(status().isNotModified()).andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl())
+                                              .header(HttpHeaders.IF_NONE_MATCH, "\"another-report\""))
+               .andExpect(status().isOk());
+
+        // Verify result
+        assertEquals("", byETag.getResponse().getContentAsString());
+        assertEquals(eTag, byETag.getResponse().getHeader(HttpHeaders.ETAG));
+        assertNotNull(byETag.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("", byLastModified.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_notChargeNotModifiedResponses_WHEN_chargeIsDisabled() throws Exception {
+
+        // Given
+        allowCachedWeatherReport(new Date().getTime());
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl()))
+                             .andExpect(status().isOk()).andReturn()
+                             .getResponse().getHeader(HttpHeaders.ETAG);
+
+        int callLimit = quotaPolicies.forTier(ApiKeyTier.FREE).getLimit();
+
+        // Run test and verify result
+        ReflectionTestUtils.setField(weatherApiController, "chargeNotModified", false);
+        try {
+            // More conditional requests than the limit of the API key
+            for (int i = 0; i < callLimit + 1; i++) {
+                mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                       .andExpect(status().isNotModified());
+            }
+        } finally {
+            ReflectionTestUtils.setField(weatherApiController, "chargeNotModified", true);
+        }
+        for (int i = 1; i < callLimit; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                   .andExpect(status().isNotModified());
+        }
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(buildWeatherReportUrl()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                                  .andExpect(status().isServiceUnavailable()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains(ERROR_API_KEY_REACHED_LIMIT));
+    }
+
+    private void allowCachedWeatherReport(long timestamp) {
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.of(buildUnsignedApiKeyDetail()));
+        when(countryServiceMock.findCountryCode(anyString())).thenReturn(Optional.of("au"));
+        when(weatherReportCacheMock.get(anyString(), anyString()))
+                .thenReturn(Optional.of(new CachedWeatherReport("mist", timestamp)));
+    }
+
+    private String buildWeatherReportUrl() {
+        return "/weather/report?q=" + city + "," + country + "&apiKey=" + API_KEY;
     }
 
     private WeatherReportDetail buildWeatherReportDetail(String city, String country) {
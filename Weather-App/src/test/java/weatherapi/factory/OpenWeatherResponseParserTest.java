@@ -0,0 +1,38 @@
+package weatherapi.factory;
+
+import org.junit.jupiter.api.Test;
+import weatherapi.BaseTest;
+import weatherapi.model.WeatherReport;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OpenWeatherResponseParserTest extends BaseTest {
+
+    @Test
+    public void parseWeatherReport_WILL_returnFirstWeatherDescription_WHEN_weatherFollowsNestedFields() {
+
+        // Given
+        String response = "{\"coord\":{\"lon\":1.5,\"lat\":[2,{\"description\":\"nested\"}]},"
+                + "\"weather\":[{\"id\":500,\"main\":{\"description\":\"inner\"},\"description\":\"light \\\"rain\\\"\"},"
+                + "{\"description\":\"second\"}],\"name\":\"Cairns\"}";
+
+        // Run test
+        WeatherReport actual = OpenWeatherResponseParser.parseWeatherReport(response.getBytes(StandardCharsets.UTF_8));
+
+        // Verify result
+        assertEquals("light \"rain\"", actual.getDescription());
+    }
+
+    @Test
+    public void parseWeatherReport_WILL_throwIllegalStateException_WHEN_weatherHasNoDescription() {
+
+        // Given
+        byte[] response = "{\"weather\":[{\"id\":500}],\"name\":\"Cairns\"}".getBytes(StandardCharsets.UTF_8);
+
+        // Run test
+        assertThrows(IllegalStateException.class, () -> OpenWeatherResponseParser.parseWeatherReport(response));
+    }
+}
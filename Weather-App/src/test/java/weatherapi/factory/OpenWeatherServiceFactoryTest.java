@@ -8,6 +8,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import weatherapi.BaseTest;
+import weatherapi.metrics.WeatherReportMetrics;
 import weatherapi.model.WeatherReport;
 
 import java.io.IOException;
@@ -23,6 +24,8 @@ public class OpenWeatherServiceFactoryTest extends BaseTest {
 
     @Mock
     private WebClient webClient;
+    @Mock
+    private WeatherReportMetrics weatherReportMetrics;
 
     @InjectMocks
     private OpenWeatherServiceFactory openWeatherServiceFactory;
@@ -75,6 +78,23 @@ public class OpenWeatherServiceFactoryTest extends BaseTest {
     }
 
 
+    @Test
+    public void getWeatherReportAsync_WILL_emitWeatherReport_WHEN_cityAndCountryCodeExist() throws IOException {
+
+        // Given
+        String desc = "clear sky";
+        WebClient.ResponseSpec responseSpecMock = initialiseMockWebClient();
+        when(responseSpecMock.bodyToMono(byte[].class))
+                .thenReturn(Mono.just(getWebClientResponseBody("webclient-response-city-country-code.txt")));
+
+        // Run test
+        WeatherReport actual = openWeatherServiceFactory.getWeatherReportAsync("sydney", "au").block();
+
+        // Verify result
+        assertNotNull(actual);
+        assertTrue(desc.equals(actual.getDescription()));
+    }
+
     @Test
     public void getWeatherReport_WILL_throwWebClientResponseException_WHEN_noCityNameAndNoCountryCodeExist() {
 
@@ -102,18 +122,24 @@ public class OpenWeatherServiceFactoryTest extends BaseTest {
     }
 
     private void initialiseMockClasses(String filename) throws IOException {
+        WebClient.ResponseSpec responseSpecMock = initialiseMockWebClient();
+        Mono<byte[]> monoMock = mock(Mono.class);
+
+        when(responseSpecMock.bodyToMono(byte[].class)).thenReturn(monoMock);
+        when(monoMock.block()).thenReturn(getWebClientResponseBody(filename));
+    }
+
+    private WebClient.ResponseSpec initialiseMockWebClient() {
         WebClient.RequestHeadersUriSpec requestHeadersUriSpecMock = mock(WebClient.RequestHeadersUriSpec.class);
         WebClient.RequestBodySpec requestBodySpecMock = mock(WebClient.RequestBodySpec.class);
         WebClient.ResponseSpec responseSpecMock = mock(WebClient.ResponseSpec.class);
-        Mono<String> monoMock = mock(Mono.class);
 
         when(webClient.get()).thenReturn(requestHeadersUriSpecMock);
         when(requestHeadersUriSpecMock.uri(anyString())).thenReturn(requestBodySpecMock);
         when(requestBodySpecMock.retrieve()).thenReturn(responseSpecMock);
-        when(responseSpecMock.bodyToMono(String.class)).thenReturn(monoMock);
-        when(monoMock.block()).thenReturn(getWebClientResponseBody(filename));
+        return responseSpecMock;
     }
-    private String getWebClientResponseBody(String filename) throws IOException {
-        return new String(getClass().getClassLoader().getResourceAsStream(filename).readAllBytes());
+    private byte[] getWebClientResponseBody(String filename) throws IOException {
+        return getClass().getClassLoader().getResourceAsStream(filename).readAllBytes();
     }
 }
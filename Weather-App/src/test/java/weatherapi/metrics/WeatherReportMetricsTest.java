@@ -0,0 +1,97 @@
+package weatherapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesMeterFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.BaseTest;
+import weatherapi.exception.WeatherApiInvalidQueryException;
+import weatherapi.metrics.WeatherReportMetrics.CacheOutcome;
+import weatherapi.metrics.WeatherReportMetrics.Stage;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static weatherapi.exception.WeatherApiError.ERROR_INVALID_QUERY;
+
+public class WeatherReportMetricsTest extends BaseTest {
+
+    @Autowired
+    private WeatherReportMetrics weatherReportMetrics;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PropertiesMeterFilter propertiesMeterFilter;
+
+    @Test
+    public void recordStage_WILL_recordStageTime_WHEN_stageHasEnded() {
+
+        // Given
+        Timer timer = meterRegistry.get("weather.report.stage").tag("stage", "upstream").timer();
+        long count = timer.count();
+
+        // Run test
+        weatherReportMetrics.recordStage(Stage.UPSTREAM, System.nanoTime() - 5_000_000);
+
+        // Verify result
+        assertEquals(count + 1, timer.count());
+        assertTrue(timer.max(TimeUnit.MILLISECONDS) >= 5);
+    }
+
+    @Test
+    public void recordStage_WILL_publishPercentileHistogramBuckets_WHEN_scrapedInPrometheusFormat() {
+
+        // Given
+        PrometheusMeterRegistry prometheusMeterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        prometheusMeterRegistry.config().meterFilter(propertiesMeterFilter);
+        WeatherReportMetrics prometheusMetrics = new WeatherReportMetrics();
+        ReflectionTestUtils.setField(prometheusMetrics, "meterRegistry", prometheusMeterRegistry);
+        prometheusMetrics.init();
+
+        // Run test
+        prometheusMetrics.recordStage(Stage.DB_LOOKUP, System.nanoTime() - 1_000_000);
+        String scrape = prometheusMeterRegistry.scrape();
+
+        // Verify result
+        assertTrue(scrape.contains("weather_report_stage_seconds_bucket{stage=\"db_lookup\",le=\"9.61192E-4\"} 0"));
+        assertTrue(scrape.contains("weather_report_stage_seconds_bucket{stage=\"db_lookup\",le=\"0.001048576\"} 1"));
+        // The buckets are bounded by the minimum and maximum expected values
+        assertTrue(scrape.contains("weather_report_stage_seconds_bucket{stage=\"db_lookup\",le=\"1.0E-4\"}"));
+        assertTrue(scrape.contains("weather_report_stage_seconds_bucket{stage=\"db_lookup\",le=\"10.0\"}"));
+        assertFalse(scrape.contains("weather_report_stage_seconds_bucket{stage=\"db_lookup\",le=\"8.9478E-5\"}"));
+        assertFalse(scrape.contains("weather_report_stage_seconds_bucket{stage=\"db_lookup\",le=\"11.453246122\"}"));
+    }
+
+    @Test
+    public void recordCacheOutcome_WILL_countOutcome_WHEN_cacheIsLookedUp() {
+
+        // Given
+        double stale = meterRegistry.get("weather.report.cache").tag("outcome", "stale").counter().count();
+
+        // Run test
+        weatherReportMetrics.recordCacheOutcome(CacheOutcome.STALE);
+
+        // Verify result
+        assertEquals(stale + 1, meterRegistry.get("weather.report.cache").tag("outcome", "stale").counter().count(), 0);
+    }
+
+    @Test
+    public void recordError_WILL_countErrorByExceptionAndStatus_WHEN_errorIsReturned() {
+
+        // Run test
+        weatherReportMetrics.recordError(new WeatherApiInvalidQueryException(ERROR_INVALID_QUERY), HttpStatus.BAD_REQUEST);
+
+        // Verify result
+        assertTrue(meterRegistry.get("weather.api.errors")
+                                .tag("exception", "WeatherApiInvalidQueryException")
+                                .tag("status", "400")
+                                .counter().count() >= 1);
+    }
+}
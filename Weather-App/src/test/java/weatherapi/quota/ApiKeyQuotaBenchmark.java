@@ -0,0 +1,115 @@
+package weatherapi.quota;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+/**
+ * Measures the latency and allocation of the quota check which replaced Utils.validateApiKey: the compare-and-set
+ * loop of each quota policy, and the in-memory quota service around it. All the threads use the same API key, so
+ * that the compare-and-set loop is measured under contention; run with -t to change the number of threads.
+ * The signature check which runs before it is measured by ApiKeySignerBenchmark.
+ * <p>
+ * Each quota benchmark reserves one call and gives it back, so that the API key never runs out of calls and every
+ * invocation goes through the compare-and-set loop twice. The usage is never saved, as write-behind mode only flushes
+ * on its schedule. Run the main method from the test classpath, or mvn -Pbenchmark test -Djmh.include=ApiKeyQuota.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ApiKeyQuotaBenchmark {
+
+    private static final String API_KEY = "dce03eae01aa390619209140981";
+
+    @Param({QuotaPolicies.FIXED_WINDOW, QuotaPolicies.SLIDING_WINDOW, QuotaPolicies.TOKEN_BUCKET})
+    private String policy;
+
+    private ApiKeyQuota apiKeyQuota;
+    private InMemoryApiKeyQuotaService apiKeyQuotaService;
+
+    @Setup
+    public void setUp() {
+        long now = new Date().getTime();
+        QuotaPolicy quotaPolicy = QuotaPolicies.build(policy, 1000, ONE_HOUR, 100);
+        apiKeyQuota = new ApiKeyQuota(ApiKeyTier.FREE, quotaPolicy, now, 0);
+
+        // The API key is only read from the database on its first call
+        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
+        apiKeyDetail.setApiKey(API_KEY);
+        apiKeyDetail.setTier(ApiKeyTier.FREE);
+        apiKeyDetail.setTimestamp(now);
+        apiKeyDetail.setNumberOfTimesUsed(0);
+        ApiKeyDetailService apiKeyDetailService = mock(ApiKeyDetailService.class);
+        when(apiKeyDetailService.findByApiKey(API_KEY)).thenReturn(Optional.of(apiKeyDetail));
+        apiKeyQuotaService = new InMemoryApiKeyQuotaService();
+        ReflectionTestUtils.setField(apiKeyQuotaService, "apiKeyDetailService", apiKeyDetailService);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "quotaPolicies", new QuotaPolicies(Map.of(ApiKeyTier.FREE, quotaPolicy)));
+        ReflectionTestUtils.setField(apiKeyQuotaService, "maxKeys", 100L);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "idleTimeout", ONE_HOUR);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "writeBehindEnabled", true);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "maxDirtyKeys", Integer.MAX_VALUE);
+        apiKeyQuotaService.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        apiKeyQuotaService.destroy();
+    }
+
+    @Benchmark
+    public int tryAcquire() {
+        long now = new Date().getTime();
+        int acquired = apiKeyQuota.tryAcquire(1, now);
+        if (acquired > 0) {
+            apiKeyQuota.release(acquired, now);
+        }
+        return acquired;
+    }
+
+    @Benchmark
+    public int inMemoryApiKeyQuotaService() throws WeatherApiException {
+        int acquired = apiKeyQuotaService.acquire(API_KEY, null, 1);
+        apiKeyQuotaService.release(API_KEY, acquired);
+        return acquired;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ApiKeyQuotaBenchmark.class.getSimpleName())
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+        new Runner(options).run();
+    }
+}
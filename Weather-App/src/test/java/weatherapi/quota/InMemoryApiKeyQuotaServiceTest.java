@@ -0,0 +1,292 @@
+package weatherapi.quota;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.BaseTest;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.security.ApiKeyTier;
+import weatherapi.service.ApiKeyDetailService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_REACHED_LIMIT;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class InMemoryApiKeyQuotaServiceTest extends BaseTest {
+
+    @Mock
+    private ApiKeyDetailService apiKeyDetailServiceMock;
+    @Spy
+    private QuotaPolicies quotaPolicies = new QuotaPolicies(Map.of(ApiKeyTier.FREE, new FixedWindowQuotaPolicy(5, ONE_HOUR),
+                                                                   ApiKeyTier.STANDARD, new SlidingWindowQuotaPolicy(3, ONE_HOUR),
+                                                                   ApiKeyTier.PREMIUM, new TokenBucketQuotaPolicy(3600, ONE_HOUR, 2)));
+
+    @InjectMocks
+    private InMemoryApiKeyQuotaService apiKeyQuotaService;
+
+    @BeforeEach
+    public void initApiKeyQuotaService() {
+        ReflectionTestUtils.setField(apiKeyQuotaService, "maxKeys", 100L);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "idleTimeout", ONE_HOUR);
+        apiKeyQuotaService.init();
+    }
+
+    @AfterEach
+    public void destroyApiKeyQuotaService() {
+        apiKeyQuotaService.destroy();
+    }
+
+    @Test
+    public void acquire_WILL_grantExactlyTheCallLimit_WHEN_manyThreadsUseTheSameApiKey() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("concurrent")).thenReturn(Optional.of(buildApiKeyDetail("concurrent", new Date().getTime(), 0)));
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // Run test
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    granted.addAndGet(apiKeyQuotaService.acquire("concurrent", null, 1));
+                } catch (WeatherApiException ex) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Verify result
+        assertEquals(5, granted.get());
+        assertEquals(27, rejected.get());
+        verify(apiKeyDetailServiceMock, times(1)).delete("concurrent");
+        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+    }
+
+    @Test
+    public void acquire_WILL_grantRemainingCalls_WHEN_moreCallsAreWantedThanLeft() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("partial")).thenReturn(Optional.of(buildApiKeyDetail("partial", new Date().getTime(), 3)));
+
+        // Run test
+        int actual = apiKeyQuotaService.acquire("partial", null, 4);
+
+        // Verify result
+        assertEquals(2, actual);
+    }
+
+    @Test
+    public void acquire_WILL_restartWindow_WHEN_windowIsMoreThanOneHourOld() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("old")).thenReturn(Optional.of(buildApiKeyDetail("old", new Date().getTime() - ONE_HOUR - 1000, 4)));
+
+        // Run test
+        int actual = apiKeyQuotaService.acquire("old", null, 5);
+
+        // Verify result
+        assertEquals(5, actual);
+    }
+
+    @Test
+    public void acquire_WILL_deleteApiKey_WHEN_apiKeyHasReachedItsLimit() {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("used")).thenReturn(Optional.of(buildApiKeyDetail("used", new Date().getTime(), 5)));
+
+        // Run test
+        WeatherApiException actual = assertThrows(WeatherApiException.class, () -> apiKeyQuotaService.acquire("used", null, 1));
+
+        // Verify result
+        assertEquals(ERROR_API_KEY_REACHED_LIMIT, actual.getMessage());
+        verify(apiKeyDetailServiceMock, times(1)).delete("used");
+    }
+
+    @Test
+    public void acquire_WILL_throttleWithoutDeletingApiKey_WHEN_slidingWindowHasNoCallsLeft() throws Exception {
+
+        // Given
+        ApiKeyDetail apiKeyDetail = buildApiKeyDetail("standard", new Date().getTime(), 2);
+        apiKeyDetail.setTier(ApiKeyTier.STANDARD);
+        when(apiKeyDetailServiceMock.findByApiKey("standard")).thenReturn(Optional.of(apiKeyDetail));
+
+        // Run test
+        int acquired = apiKeyQuotaService.acquire("standard", null, 2);
+        WeatherApiException actual = assertThrows(WeatherApiException.class, () -> apiKeyQuotaService.acquire("standard", null, 1));
+
+        // Verify result
+        assertEquals(1, acquired);
+        assertEquals(ERROR_API_KEY_REACHED_LIMIT, actual.getMessage());
+        verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
+        apiKeyQuotaService.flushUsage();
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, atLeastOnce()).saveUsage(savedUsage.capture());
+        assertEquals(ApiKeyTier.STANDARD, savedUsage.getValue().get(0).getTier());
+        assertEquals(3, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void acquire_WILL_admitBurstThenThrottle_WHEN_tokenBucketIsEmpty() throws Exception {
+
+        // Given
+        ApiKeyDetail apiKeyDetail = buildApiKeyDetail("premium", new Date().getTime(), 0);
+        apiKeyDetail.setTier(ApiKeyTier.PREMIUM);
+        when(apiKeyDetailServiceMock.findByApiKey("premium")).thenReturn(Optional.of(apiKeyDetail));
+
+        // Run test
+        int acquired = apiKeyQuotaService.acquire("premium", null, 5);
+        WeatherApiException actual = assertThrows(WeatherApiException.class, () -> apiKeyQuotaService.acquire("premium", null, 1));
+
+        // Verify result
+        assertEquals(2, acquired);
+        assertEquals(ERROR_API_KEY_REACHED_LIMIT, actual.getMessage());
+        verify(apiKeyDetailServiceMock, times(0)).delete(anyString());
+    }
+
+    @Test
+    public void acquire_WILL_applyQuotaPolicyOfSignedTier_WHEN_apiKeyIsSigned() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("signed")).thenReturn(Optional.of(buildApiKeyDetail("signed", new Date().getTime(), 0)));
+
+        // Run test
+        int acquired = apiKeyQuotaService.acquire("signed", ApiKeyTier.PREMIUM, 5);
+
+        // Verify result
+        assertEquals(2, acquired);
+        verify(quotaPolicies, times(1)).forTier(ApiKeyTier.PREMIUM);
+    }
+
+    @Test
+    public void acquire_WILL_throwWeatherApiException_WHEN_apiKeyDoesNotExist() {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey(anyString())).thenReturn(Optional.empty());
+
+        // Run test
+        WeatherApiException actual = assertThrows(WeatherApiException.class, () -> apiKeyQuotaService.acquire("unknown", null, 1));
+
+        // Verify result
+        assertEquals(ERROR_API_KEY_NOT_VALID, actual.getMessage());
+    }
+
+    @Test
+    public void release_WILL_giveBackCalls_WHEN_callsHaveNotBeenServed() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("released")).thenReturn(Optional.of(buildApiKeyDetail("released", new Date().getTime(), 4)));
+        apiKeyQuotaService.acquire("released", null, 1);
+
+        // Run test
+        apiKeyQuotaService.release("released", 1);
+
+        // Verify result
+        assertEquals(1, apiKeyQuotaService.acquire("released", null, 1));
+    }
+
+    @Test
+    public void acquire_WILL_saveUsageOffTheRequestThread_WHEN_writeBehindIsDisabled() throws Exception {
+
+        // Given
+        when(apiKeyDetailServiceMock.findByApiKey("immediate")).thenReturn(Optional.of(buildApiKeyDetail("immediate", new Date().getTime(), 1)));
+
+        // Run test
+        apiKeyQuotaService.acquire("immediate", null, 2);
+
+        // Verify result
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, timeout(1000).times(1)).saveUsage(savedUsage.capture());
+        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        assertEquals(3, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void acquire_WILL_keepUnsavedUsage_WHEN_apiKeyIsDroppedFromMemory() throws Exception {
+
+        // Given
+        ReflectionTestUtils.setField(apiKeyQuotaService, "writeBehindEnabled", true);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "maxDirtyKeys", 500);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "idleTimeout", 0L);
+        apiKeyQuotaService.init();
+        when(apiKeyDetailServiceMock.findByApiKey("idle")).thenReturn(Optional.of(buildApiKeyDetail("idle", new Date().getTime(), 0)));
+
+        // Run test
+        apiKeyQuotaService.acquire("idle", null, 1);
+        apiKeyQuotaService.acquire("idle", null, 1);
+        apiKeyQuotaService.flushUsage();
+
+        // Verify result
+        verify(apiKeyDetailServiceMock, times(1)).findByApiKey("idle");
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(savedUsage.capture());
+        assertEquals(2, savedUsage.getValue().get(0).getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void flushUsage_WILL_saveLatestUsageInOneBatch_WHEN_writeBehindIsEnabled() throws Exception {
+
+        // Given
+        ReflectionTestUtils.setField(apiKeyQuotaService, "writeBehindEnabled", true);
+        ReflectionTestUtils.setField(apiKeyQuotaService, "maxDirtyKeys", 500);
+        when(apiKeyDetailServiceMock.findByApiKey("first")).thenReturn(Optional.of(buildApiKeyDetail("first", new Date().getTime(), 0)));
+        when(apiKeyDetailServiceMock.findByApiKey("second")).thenReturn(Optional.of(buildApiKeyDetail("second", new Date().getTime(), 1)));
+        apiKeyQuotaService.acquire("first", null, 1);
+        apiKeyQuotaService.acquire("first", null, 1);
+        apiKeyQuotaService.acquire("second", null, 1);
+
+        // Run test
+        apiKeyQuotaService.flushUsage();
+        apiKeyQuotaService.flushUsage();
+
+        // Verify result
+        ArgumentCaptor<List<ApiKeyDetail>> savedUsage = ArgumentCaptor.forClass(List.class);
+        verify(apiKeyDetailServiceMock, times(1)).saveUsage(savedUsage.capture());
+        verify(apiKeyDetailServiceMock, times(0)).save(any(ApiKeyDetail.class));
+        Map<String, Integer> numberOfTimesUsed = savedUsage.getValue().stream()
+                                                           .collect(toMap(ApiKeyDetail::getApiKey, ApiKeyDetail::getNumberOfTimesUsed));
+        assertEquals(2, numberOfTimesUsed.get("first").intValue());
+        assertEquals(2, numberOfTimesUsed.get("second").intValue());
+    }
+
+    private ApiKeyDetail buildApiKeyDetail(String apiKey, long timestamp, int numberOfTimesUsed) {
+        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
+        apiKeyDetail.setApiKey(apiKey);
+        apiKeyDetail.setTimestamp(timestamp);
+        apiKeyDetail.setNumberOfTimesUsed(numberOfTimesUsed);
+        return apiKeyDetail;
+    }
+}
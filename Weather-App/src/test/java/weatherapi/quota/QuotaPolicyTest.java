@@ -0,0 +1,162 @@
+package weatherapi.quota;
+
+import org.junit.jupiter.api.Test;
+import weatherapi.BaseTest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static weatherapi.quota.QuotaPolicy.NO_CALLS_LEFT;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class QuotaPolicyTest extends BaseTest {
+
+    private static final long WINDOW_START = 1_000 * ONE_HOUR;
+
+    @Test
+    public void fixedWindow_WILL_admitTwiceTheLimit_WHEN_callsStraddleTheEndOfTheWindow() {
+
+        // Given
+        QuotaPolicy policy = new FixedWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.initialState(WINDOW_START, 0);
+        state = policy.acquire(state, 4, WINDOW_START + ONE_HOUR - 1);
+
+        // Run test
+        int actual = policy.available(state, 5, WINDOW_START + ONE_HOUR + 1);
+
+        // Verify result
+        assertEquals(5, actual);
+    }
+
+    @Test
+    public void fixedWindow_WILL_admitCalls_WHEN_limitHasNotBeenReachedWithinTheWindow() {
+
+        // Given
+        QuotaPolicy policy = new FixedWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.initialState(WINDOW_START, 4);
+
+        // Run test and verify result
+        assertEquals(1, policy.available(state, 5, WINDOW_START));
+        assertEquals(1, policy.available(state, 5, WINDOW_START + ONE_HOUR / 2));
+        assertEquals(NO_CALLS_LEFT, policy.available(policy.initialState(WINDOW_START, 5), 1, WINDOW_START + ONE_HOUR / 2));
+    }
+
+    @Test
+    public void fixedWindow_WILL_restartWindow_WHEN_windowHasEndedWithoutReachingTheLimit() {
+
+        // Given
+        QuotaPolicy policy = new FixedWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.initialState(WINDOW_START, 4);
+        long now = WINDOW_START + ONE_HOUR + 1;
+
+        // Run test
+        long actual = policy.acquire(state, policy.available(state, 5, now), now);
+
+        // Verify result
+        assertEquals(now, policy.timestamp(actual));
+        assertEquals(5, policy.numberOfTimesUsed(actual, now));
+        // The window is not restarted before it has ended
+        assertEquals(1, policy.available(state, 5, WINDOW_START + ONE_HOUR - 1));
+    }
+
+    @Test
+    public void fixedWindow_WILL_countCallsInCurrentWindow_WHEN_windowEndsExactlyNow() {
+
+        // Given
+        QuotaPolicy policy = new FixedWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.initialState(WINDOW_START, 3);
+
+        // Run test
+        int actual = policy.available(state, 5, WINDOW_START + ONE_HOUR);
+
+        // Verify result
+        assertEquals(2, actual);
+        assertEquals(WINDOW_START, policy.timestamp(policy.acquire(state, 2, WINDOW_START + ONE_HOUR)));
+    }
+
+    @Test
+    public void fixedWindow_WILL_returnNoCallsLeft_WHEN_limitWasReachedInAWindowWhichHasEnded() {
+
+        // Given
+        QuotaPolicy policy = new FixedWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.initialState(WINDOW_START, 5);
+
+        // Run test and verify result
+        assertEquals(NO_CALLS_LEFT, policy.available(state, 1, WINDOW_START + ONE_HOUR));
+        assertEquals(NO_CALLS_LEFT, policy.available(state, 1, WINDOW_START + 2 * ONE_HOUR));
+        assertTrue(policy.isSpentWhenExhausted());
+    }
+
+    @Test
+    public void slidingWindow_WILL_countThePreviousWindow_WHEN_callsStraddleTheEndOfTheWindow() {
+
+        // Given
+        QuotaPolicy policy = new SlidingWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.initialState(WINDOW_START, 0);
+        state = policy.acquire(state, 4, WINDOW_START + ONE_HOUR - 1);
+
+        // Run test and verify result
+        assertEquals(1, policy.available(state, 5, WINDOW_START + ONE_HOUR + 1));
+        // Half of the previous window still overlaps the last hour
+        assertEquals(3, policy.available(state, 5, WINDOW_START + ONE_HOUR + ONE_HOUR / 2));
+        assertEquals(5, policy.available(state, 5, WINDOW_START + 2 * ONE_HOUR));
+    }
+
+    @Test
+    public void slidingWindow_WILL_returnNoCallsLeft_WHEN_limitIsReached() {
+
+        // Given
+        QuotaPolicy policy = new SlidingWindowQuotaPolicy(5, ONE_HOUR);
+        long state = policy.acquire(policy.initialState(WINDOW_START, 0), 5, WINDOW_START + 1);
+
+        // Run test and verify result
+        assertEquals(NO_CALLS_LEFT, policy.available(state, 1, WINDOW_START + 2));
+        assertEquals(1, policy.available(policy.release(state, 1, WINDOW_START + 2), 1, WINDOW_START + 2));
+        assertEquals(5, policy.numberOfTimesUsed(state, WINDOW_START + 2));
+        assertEquals(WINDOW_START, policy.timestamp(state));
+    }
+
+    @Test
+    public void tokenBucket_WILL_admitBurstAndRefillSteadily_WHEN_bucketIsEmptied() {
+
+        // Given
+        QuotaPolicy policy = new TokenBucketQuotaPolicy(3600, ONE_HOUR, 10);
+        long state = policy.initialState(WINDOW_START, 0);
+
+        // Run test
+        int burst = policy.available(state, 50, WINDOW_START);
+        state = policy.acquire(state, burst, WINDOW_START);
+
+        // Verify result
+        assertEquals(10, burst);
+        assertEquals(NO_CALLS_LEFT, policy.available(state, 1, WINDOW_START));
+        // One call is refilled every second
+        assertEquals(1, policy.available(state, 5, WINDOW_START + 1000));
+        assertEquals(3, policy.available(state, 5, WINDOW_START + 3000));
+        assertEquals(10, policy.numberOfTimesUsed(state, WINDOW_START));
+        assertEquals(7, policy.numberOfTimesUsed(state, WINDOW_START + 3000));
+    }
+
+    @Test
+    public void tokenBucket_WILL_restoreTheBucket_WHEN_usageIsReadBackFromTheDatabase() {
+
+        // Given
+        QuotaPolicy policy = new TokenBucketQuotaPolicy(3600, ONE_HOUR, 10);
+        long state = policy.acquire(policy.initialState(WINDOW_START, 0), 6, WINDOW_START);
+
+        // Run test
+        long restored = policy.initialState(policy.timestamp(state), policy.numberOfTimesUsed(state, WINDOW_START));
+
+        // Verify result
+        assertEquals(4, policy.available(restored, 10, WINDOW_START));
+        assertEquals(5, policy.available(policy.release(restored, 1, WINDOW_START), 10, WINDOW_START));
+    }
+
+    @Test
+    public void build_WILL_throwIllegalStateException_WHEN_policyIsUnknown() {
+
+        // Run test and verify result
+        assertThrows(IllegalStateException.class, () -> QuotaPolicies.build("leaky-bucket", 5, ONE_HOUR, 5));
+        assertThrows(IllegalArgumentException.class, () -> QuotaPolicies.build(QuotaPolicies.SLIDING_WINDOW, 100_000, ONE_HOUR, 5));
+    }
+}
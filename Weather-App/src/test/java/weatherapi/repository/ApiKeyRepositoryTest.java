@@ -0,0 +1,258 @@
+package weatherapi.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import weatherapi.BaseTest;
+import weatherapi.entity.ApiKeyDetail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class ApiKeyRepositoryTest extends BaseTest {
+
+    private static final int LIMIT = 5;
+
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+
+    @Test
+    public void consumeCalls_WILL_countCalls_WHEN_apiKeyHasCallsLeft() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-left", now, 3));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-left", 2, LIMIT, now, now - ONE_HOUR, true);
+
+        // Verify result
+        assertEquals(2, actual);
+        assertEquals(5, apiKeyRepository.findById("consume-left").get().getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void consumeCalls_WILL_takeOnlyTheCallsLeft_WHEN_callsExceedLimit() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-over", now, 4));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-over", 2, LIMIT, now, now - ONE_HOUR, true);
+
+        // Verify result
+        assertEquals(1, actual);
+        assertEquals(5, apiKeyRepository.findById("consume-over").get().getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void consumeCalls_WILL_restartWindow_WHEN_windowIsMoreThanOneHourOld() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-old", now - ONE_HOUR - 1000, 4));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-old", 1, LIMIT, now, now - ONE_HOUR, true);
+
+        // Verify result
+        assertEquals(1, actual);
+        ApiKeyDetail apiKeyDetail = apiKeyRepository.findById("consume-old").get();
+        assertEquals(1, apiKeyDetail.getNumberOfTimesUsed());
+        assertEquals(now, apiKeyDetail.getTimestamp().longValue());
+    }
+
+    @Test
+    public void consumeCalls_WILL_rejectCalls_WHEN_limitWasReachedInOldWindow() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-used", now - ONE_HOUR - 1000, LIMIT));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-used", 1, LIMIT, now, now - ONE_HOUR, true);
+
+        // Verify result
+        assertEquals(0, actual);
+    }
+
+    @Test
+    public void consumeCalls_WILL_restartWindow_WHEN_throttledApiKeyReachedLimitInOldWindow() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-throttled", now - ONE_HOUR - 1000, LIMIT));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-throttled", 2, LIMIT, now, now - ONE_HOUR, false);
+
+        // Verify result
+        assertEquals(2, actual);
+        ApiKeyDetail apiKeyDetail = apiKeyRepository.findById("consume-throttled").get();
+        assertEquals(2, apiKeyDetail.getNumberOfTimesUsed());
+        assertEquals(now, apiKeyDetail.getTimestamp().longValue());
+    }
+
+    @Test
+    public void consumeCalls_WILL_rejectCalls_WHEN_throttledApiKeyReachedLimitInCurrentWindow() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-throttled-current", now - 1000, LIMIT));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-throttled-current", 1, LIMIT, now, now - ONE_HOUR, false);
+
+        // Verify result
+        assertEquals(0, actual);
+        assertEquals(LIMIT, apiKeyRepository.findById("consume-throttled-current").get().getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void consumeCalls_WILL_countCallsInCurrentWindow_WHEN_windowStartedExactlyAtWindowStart() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-boundary", now - ONE_HOUR, 3));
+
+        // Run test
+        int actual = apiKeyRepository.consumeCalls("consume-boundary", 2, LIMIT, now, now - ONE_HOUR, true);
+
+        // Verify result
+        assertEquals(2, actual);
+        ApiKeyDetail apiKeyDetail = apiKeyRepository.findById("consume-boundary").get();
+        assertEquals(5, apiKeyDetail.getNumberOfTimesUsed());
+        assertEquals(now - ONE_HOUR, apiKeyDetail.getTimestamp().longValue());
+    }
+
+    @Test
+    public void consumeCalls_WILL_rejectCalls_WHEN_apiKeyDoesNotExist() {
+
+        // Run test
+        long now = new Date().getTime();
+        int actual = apiKeyRepository.consumeCalls("consume-unknown", 1, LIMIT, now, now - ONE_HOUR, true);
+
+        // Verify result
+        assertEquals(0, actual);
+    }
+
+    @Test
+    public void consumeCalls_WILL_allowExactlyTheLimit_WHEN_manyThreadsUseTheSameApiKey() throws Exception {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("consume-concurrent", now, 0));
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+
+        // Run test
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    allowed.addAndGet(apiKeyRepository.consumeCalls("consume-concurrent", 1, LIMIT, now, now - ONE_HOUR, true));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Verify result
+        assertEquals(LIMIT, allowed.get());
+        assertEquals(LIMIT, apiKeyRepository.findById("consume-concurrent").get().getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void releaseCalls_WILL_giveBackCalls_WHEN_callsWereCounted() {
+
+        // Given
+        apiKeyRepository.save(buildApiKeyDetail("release-counted", new Date().getTime(), 3));
+
+        // Run test
+        int actual = apiKeyRepository.releaseCalls("release-counted", 2);
+
+        // Verify result
+        assertEquals(1, actual);
+        assertEquals(1, apiKeyRepository.findById("release-counted").get().getNumberOfTimesUsed());
+    }
+
+    @Test
+    public void updateUsage_WILL_updateExistingApiKeysOnly_WHEN_apiKeysAreBatched() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("batch-first", now, 0));
+        apiKeyRepository.save(buildApiKeyDetail("batch-second", now, 0));
+
+        // Run test
+        apiKeyRepository.updateUsage(List.of(buildApiKeyDetail("batch-first", now, 2),
+                                             buildApiKeyDetail("batch-second", now + 1, 3),
+                                             buildApiKeyDetail("batch-deleted", now, 4)));
+
+        // Verify result
+        assertEquals(2, apiKeyRepository.findById("batch-first").get().getNumberOfTimesUsed());
+        ApiKeyDetail second = apiKeyRepository.findById("batch-second").get();
+        assertEquals(3, second.getNumberOfTimesUsed());
+        assertEquals(now + 1, second.getTimestamp().longValue());
+        assertTrue(apiKeyRepository.findById("batch-deleted").isEmpty());
+    }
+
+    @Test
+    public void insertAll_WILL_insertAllApiKeys_WHEN_apiKeysSpanSeveralBatches() {
+
+        // Given
+        List<ApiKeyDetail> apiKeyDetails = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            apiKeyDetails.add(buildUnsignedApiKeyDetail());
+        }
+
+        // Run test
+        apiKeyRepository.insertAll(apiKeyDetails, 10);
+
+        // Verify result
+        for (ApiKeyDetail apiKeyDetail : apiKeyDetails) {
+            assertTrue(apiKeyRepository.findById(apiKeyDetail.getApiKey()).isPresent());
+        }
+    }
+
+    @Test
+    public void forEachUnsignedApiKey_WILL_skipSignedApiKeys_WHEN_bothKindsExist() {
+
+        // Given
+        long now = new Date().getTime();
+        apiKeyRepository.save(buildApiKeyDetail("unsigned-key", now, 0));
+        apiKeyRepository.save(buildApiKeyDetail("wk_signed-key", now, 0));
+        apiKeyRepository.save(buildApiKeyDetail("wkx-unsigned-key", now, 0));
+
+        // Run test
+        List<String> actual = new ArrayList<>();
+        apiKeyRepository.forEachUnsignedApiKey(actual::add);
+
+        // Verify result
+        assertTrue(actual.contains("unsigned-key"));
+        assertTrue(actual.contains("wkx-unsigned-key"));
+        assertFalse(actual.contains("wk_signed-key"));
+    }
+
+    private ApiKeyDetail buildApiKeyDetail(String apiKey, long timestamp, int numberOfTimesUsed) {
+        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
+        apiKeyDetail.setApiKey(apiKey);
+        apiKeyDetail.setTimestamp(timestamp);
+        apiKeyDetail.setNumberOfTimesUsed(numberOfTimesUsed);
+        return apiKeyDetail;
+    }
+}
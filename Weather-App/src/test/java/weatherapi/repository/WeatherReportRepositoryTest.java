@@ -0,0 +1,100 @@
+package weatherapi.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import weatherapi.BaseTest;
+import weatherapi.entity.WeatherReportDetail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WeatherReportRepositoryTest extends BaseTest {
+
+    @Autowired
+    private WeatherReportRepository weatherReportRepository;
+
+    @Test
+    public void upsert_WILL_insertWeatherReport_WHEN_cityHasNone() {
+
+        // Given
+        long now = new Date().getTime();
+
+        // Run test
+        int actual = weatherReportRepository.upsert("upsert-insert", "AU", "Upsert-insert", "Australia", "clear sky", now);
+
+        // Verify result
+        assertEquals(1, actual);
+        WeatherReportDetail weatherReportDetail = weatherReportRepository.findByCityKeyAndCountryCode("upsert-insert", "AU").get();
+        assertEquals("clear sky", weatherReportDetail.getDescription());
+        assertEquals(now, weatherReportDetail.getTimestamp().longValue());
+    }
+
+    @Test
+    public void upsert_WILL_updateWeatherReportInPlace_WHEN_cityAlreadyHasOne() {
+
+        // Given
+        long now = new Date().getTime();
+        weatherReportRepository.upsert("upsert-update", "GB", "Upsert-update", "United Kingdom", "mist", now - 1000);
+        Long id = weatherReportRepository.findByCityKeyAndCountryCode("upsert-update", "GB").get().getId();
+
+        // Run test
+        weatherReportRepository.upsert("upsert-update", "GB", "Upsert-update", "UK", "light rain", now);
+
+        // Verify result
+        WeatherReportDetail weatherReportDetail = weatherReportRepository.findByCityKeyAndCountryCode("upsert-update", "GB").get();
+        assertEquals(id, weatherReportDetail.getId());
+        assertEquals("light rain", weatherReportDetail.getDescription());
+        assertEquals("UK", weatherReportDetail.getCountry());
+        assertEquals(now, weatherReportDetail.getTimestamp().longValue());
+    }
+
+    @Test
+    public void upsert_WILL_keepOneWeatherReport_WHEN_manyThreadsSaveTheSameCity() throws Exception {
+
+        // Given
+        long now = new Date().getTime();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Run test
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String description = "description-" + i;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    weatherReportRepository.upsert("upsert-concurrent", "NZ", "Upsert-concurrent", "New Zealand",
+                                                   description, now);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Verify result
+        long count = weatherReportRepository.findAll().stream()
+                                            .filter(weatherReportDetail -> "upsert-concurrent".equals(weatherReportDetail.getCityKey()))
+                                            .count();
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void findByCityKeyAndCountryCode_WILL_returnNothing_WHEN_cityHasNoWeatherReport() {
+
+        // Run test
+        Optional<WeatherReportDetail> actual = weatherReportRepository.findByCityKeyAndCountryCode("unknown", "AU");
+
+        // Verify result
+        assertTrue(actual.isEmpty());
+    }
+}
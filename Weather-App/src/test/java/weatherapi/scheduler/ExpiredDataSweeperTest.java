@@ -0,0 +1,146 @@
+package weatherapi.scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.BaseTest;
+import weatherapi.entity.ApiKeyDetail;
+import weatherapi.exception.WeatherApiException;
+import weatherapi.quota.ApiKeyQuotaService;
+import weatherapi.quota.QuotaPolicies;
+import weatherapi.repository.ApiKeyRepository;
+import weatherapi.repository.WeatherReportRepository;
+import weatherapi.security.ApiKeyTier;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_REACHED_LIMIT;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class ExpiredDataSweeperTest extends BaseTest {
+
+    private static final long ONE_DAY = 24 * ONE_HOUR;
+
+    @Autowired
+    private ExpiredDataSweeper expiredDataSweeper;
+    @Autowired
+    private WeatherReportRepository weatherReportRepository;
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private QuotaPolicies quotaPolicies;
+    @Autowired
+    private ApiKeyQuotaService apiKeyQuotaService;
+
+    @Test
+    public void sweep_WILL_deleteExpiredWeatherReportsInBatches_WHEN_theyAreOlderThanRetention() {
+
+        // Given
+        long now = new Date().getTime();
+        for (int i = 0; i < 5; i++) {
+            weatherReportRepository.upsert("sweep-expired-" + i, "AU", "Sweep-expired", "Australia", "mist", now - 2 * ONE_DAY);
+        }
+        weatherReportRepository.upsert("sweep-recent", "AU", "Sweep-recent", "Australia", "mist", now - 2 * ONE_HOUR);
+        ReflectionTestUtils.setField(expiredDataSweeper, "batchSize", 2);
+        double removedBefore = removedRows("weather_report_details");
+
+        // Run test
+        try {
+            expiredDataSweeper.sweep();
+        } finally {
+            ReflectionTestUtils.setField(expiredDataSweeper, "batchSize", 500);
+        }
+
+        // Verify result
+        for (int i = 0; i < 5; i++) {
+            assertTrue(weatherReportRepository.findByCityKeyAndCountryCode("sweep-expired-" + i, "AU").isEmpty());
+        }
+        assertTrue(weatherReportRepository.findByCityKeyAndCountryCode("sweep-recent", "AU").isPresent());
+        assertTrue(removedRows("weather_report_details") - removedBefore >= 5);
+        assertTrue(meterRegistry.get("weather.sweeper.duration").timer().count() > 0);
+    }
+
+    @Test
+    public void sweep_WILL_deleteSpentApiKeys_WHEN_theyHaveReachedTheLimitOrAreUnused() {
+
+        // Given
+        long now = new Date().getTime();
+        int limit = quotaPolicies.forTier(ApiKeyTier.FREE).getLimit();
+        apiKeyRepository.save(buildApiKeyDetail("sweep-exhausted", now, limit));
+        apiKeyRepository.save(buildApiKeyDetail("sweep-unused", now - 8 * ONE_DAY, 1));
+        apiKeyRepository.save(buildApiKeyDetail("sweep-active", now - 2 * ONE_HOUR, 1));
+        // A key of a throttled tier is kept however often it has been used
+        ApiKeyDetail throttled = buildApiKeyDetail("sweep-throttled", now, limit);
+        throttled.setTier(ApiKeyTier.STANDARD);
+        apiKeyRepository.save(throttled);
+
+        // Run test
+        expiredDataSweeper.sweep();
+
+        // Verify result
+        assertTrue(apiKeyRepository.findById("sweep-exhausted").isEmpty());
+        assertTrue(apiKeyRepository.findById("sweep-unused").isEmpty());
+        assertTrue(apiKeyRepository.findById("sweep-active").isPresent());
+        assertTrue(apiKeyRepository.findById("sweep-throttled").isPresent());
+    }
+
+    @Test
+    public void sweep_WILL_keepApiKeyAndItsUsage_WHEN_itIsInUseAndWriteBehindIsEnabled() throws WeatherApiException {
+
+        // Given
+        long now = new Date().getTime();
+        int limit = quotaPolicies.forTier(ApiKeyTier.FREE).getLimit();
+        apiKeyRepository.save(buildApiKeyDetail("sweep-write-behind", now - 8 * ONE_DAY, 1));
+        ReflectionTestUtils.setField(apiKeyQuotaService, "writeBehindEnabled", true);
+        try {
+            // The window restarts and these calls are only counted in memory
+            assertEquals(limit - 1, apiKeyQuotaService.acquire("sweep-write-behind", null, limit - 1));
+
+            // Run test
+            expiredDataSweeper.sweep();
+        } finally {
+            ReflectionTestUtils.setField(apiKeyQuotaService, "writeBehindEnabled", false);
+        }
+
+        // Verify result
+        assertTrue(apiKeyRepository.findById("sweep-write-behind").isPresent());
+        assertEquals(1, apiKeyQuotaService.acquire("sweep-write-behind", null, 1));
+        WeatherApiException exception = assertThrows(WeatherApiException.class,
+                                                      () -> apiKeyQuotaService.acquire("sweep-write-behind", null, 1));
+        assertEquals(ERROR_API_KEY_REACHED_LIMIT, exception.getMessage());
+    }
+
+    @Test
+    public void init_WILL_keepWeatherReportsWhichCanBeServed_WHEN_retentionIsTooShort() {
+
+        // Given
+        ReflectionTestUtils.setField(expiredDataSweeper, "weatherReportRetention", 1000L);
+
+        // Run test
+        expiredDataSweeper.init();
+
+        // Verify result
+        long retention = (long) ReflectionTestUtils.getField(expiredDataSweeper, "weatherReportRetention");
+        long staleGracePeriod = (long) ReflectionTestUtils.getField(expiredDataSweeper, "staleGracePeriod");
+        assertEquals(ONE_HOUR + staleGracePeriod, retention);
+        ReflectionTestUtils.setField(expiredDataSweeper, "weatherReportRetention", ONE_DAY);
+    }
+
+    private double removedRows(String table) {
+        return meterRegistry.get("weather.sweeper.rows.removed").tag("table", table).counter().count();
+    }
+
+    private ApiKeyDetail buildApiKeyDetail(String apiKey, long timestamp, int numberOfTimesUsed) {
+        ApiKeyDetail apiKeyDetail = new ApiKeyDetail();
+        apiKeyDetail.setApiKey(apiKey);
+        apiKeyDetail.setTimestamp(timestamp);
+        apiKeyDetail.setNumberOfTimesUsed(numberOfTimesUsed);
+        return apiKeyDetail;
+    }
+}
@@ -0,0 +1,84 @@
+package weatherapi.scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import weatherapi.BaseTest;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WeatherReportPopularityTrackerTest extends BaseTest {
+
+    @Autowired
+    private WeatherReportPopularityTracker weatherReportPopularityTracker;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void findMostPopular_WILL_returnCitiesByRequestCount_WHEN_citiesHaveBeenRequested() {
+
+        // Given
+        recordRequests("Tokyo", "Japan", "JP", 300);
+        recordRequests("Osaka", "Japan", "JP", 200);
+
+        // Run test
+        List<PopularCity> actual = weatherReportPopularityTracker.findMostPopular(2);
+
+        // Verify result
+        assertEquals(2, actual.size());
+        assertEquals("Tokyo", actual.get(0).getCity());
+        assertEquals(300, actual.get(0).getRequestCount());
+        assertEquals("Osaka", actual.get(1).getCity());
+    }
+
+    @Test
+    public void decay_WILL_halveRequestCount_WHEN_cityHasBeenRequested() {
+
+        // Given
+        recordRequests("Kyoto", "Japan", "JP", 5);
+
+        // Run test
+        weatherReportPopularityTracker.decay();
+
+        // Verify result
+        Optional<PopularCity> actual = findPopularCity("Kyoto");
+        assertTrue(actual.isPresent());
+        assertEquals(2, actual.get().getRequestCount());
+
+        weatherReportPopularityTracker.decay();
+        weatherReportPopularityTracker.decay();
+        assertTrue(findPopularCity("Kyoto").isEmpty());
+    }
+
+    @Test
+    public void recordRequest_WILL_countPreventedMiss_WHEN_prefetchedReportIsRequestedAfterPreviousExpiry() {
+
+        // Given
+        double preventedMisses = meterRegistry.counter("weather.report.prefetch.prevented.misses").count();
+        weatherReportPopularityTracker.recordPrefetch("Nagoya", "JP", new Date().getTime() - 1);
+
+        // Run test
+        weatherReportPopularityTracker.recordRequest("Nagoya", "Japan", "JP");
+        weatherReportPopularityTracker.recordRequest("Nagoya", "Japan", "JP");
+
+        // Verify result
+        assertEquals(preventedMisses + 1, meterRegistry.counter("weather.report.prefetch.prevented.misses").count(), 0);
+    }
+
+    private void recordRequests(String city, String country, String countryCode, int count) {
+        for (int i = 0; i < count; i++) {
+            weatherReportPopularityTracker.recordRequest(city, country, countryCode);
+        }
+    }
+
+    private Optional<PopularCity> findPopularCity(String city) {
+        return weatherReportPopularityTracker.findMostPopular(Integer.MAX_VALUE).stream()
+                                             .filter(popularCity -> city.equals(popularCity.getCity()))
+                                             .findFirst();
+    }
+}
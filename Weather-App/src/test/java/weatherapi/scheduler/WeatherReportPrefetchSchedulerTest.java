@@ -0,0 +1,69 @@
+package weatherapi.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import weatherapi.BaseTest;
+import weatherapi.cache.CachedWeatherReport;
+import weatherapi.cache.WeatherReportCache;
+import weatherapi.model.WeatherReport;
+import weatherapi.service.WeatherReportService;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class WeatherReportPrefetchSchedulerTest extends BaseTest {
+
+    @Mock
+    private WeatherReportPopularityTracker weatherReportPopularityTrackerMock;
+    @Mock
+    private WeatherReportService weatherReportServiceMock;
+    @Mock
+    private WeatherReportCache weatherReportCacheMock;
+    @InjectMocks
+    private WeatherReportPrefetchScheduler weatherReportPrefetchScheduler;
+
+    @Test
+    public void prefetchPopularWeatherReports_WILL_skipCity_WHEN_cityHasNoCachedWeatherReport() {
+
+        // Given
+        ReflectionTestUtils.setField(weatherReportPrefetchScheduler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(weatherReportPrefetchScheduler, "enabled", true);
+        ReflectionTestUtils.setField(weatherReportPrefetchScheduler, "interval", 100L);
+        ReflectionTestUtils.setField(weatherReportPrefetchScheduler, "topN", 10);
+        ReflectionTestUtils.setField(weatherReportPrefetchScheduler, "leadTime", 300000L);
+        ReflectionTestUtils.setField(weatherReportPrefetchScheduler, "maxCallsPerRun", 10);
+        weatherReportPrefetchScheduler.init();
+
+        when(weatherReportPopularityTrackerMock.findMostPopular(anyInt()))
+                .thenReturn(List.of(new PopularCity("atlantis city", "australia", "au"),
+                                    new PopularCity("sydney", "australia", "au")));
+        when(weatherReportCacheMock.get("atlantis city", "au")).thenReturn(Optional.empty());
+        long timestamp = new Date().getTime() - ONE_HOUR + 60000;
+        when(weatherReportCacheMock.get("sydney", "au")).thenReturn(Optional.of(new CachedWeatherReport("mist", timestamp)));
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        when(weatherReportServiceMock.refreshWeatherReportAsync("sydney", "australia", "au")).thenReturn(Mono.just(weatherReport));
+
+        // Run test
+        weatherReportPrefetchScheduler.prefetchPopularWeatherReports();
+
+        // Verify result
+        verify(weatherReportServiceMock, timeout(1000).times(1)).refreshWeatherReportAsync("sydney", "australia", "au");
+        verify(weatherReportPopularityTrackerMock, timeout(1000).times(1)).recordPrefetch("sydney", "au", timestamp + ONE_HOUR);
+        verify(weatherReportServiceMock, times(0)).refreshWeatherReportAsync(eq("atlantis city"), anyString(), anyString());
+    }
+}
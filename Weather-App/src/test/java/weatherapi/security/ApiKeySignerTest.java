@@ -0,0 +1,165 @@
+package weatherapi.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import weatherapi.BaseTest;
+import weatherapi.exception.WeatherApiException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static weatherapi.exception.WeatherApiError.ERROR_API_KEY_NOT_VALID;
+import static weatherapi.utility.Utils.ONE_HOUR;
+
+public class ApiKeySignerTest extends BaseTest {
+
+    private ApiKeySigner apiKeySigner;
+
+    @BeforeEach
+    public void setUp() {
+        apiKeySigner = buildApiKeySigner("a-signing-secret-of-at-least-32-bytes");
+    }
+
+    @Test
+    public void verify_WILL_returnTierAndIssueTimestamp_WHEN_apiKeyIsSigned() {
+
+        // Given
+        long now = new Date().getTime();
+        String apiKey = apiKeySigner.sign(ApiKeyTier.PREMIUM, now);
+
+        // Run test
+        Optional<SignedApiKey> signedApiKey = apiKeySigner.verify(apiKey);
+
+        // Verify result
+        assertTrue(apiKey.startsWith(ApiKeySigner.PREFIX));
+        assertTrue(apiKey.length() <= 64);
+        assertTrue(signedApiKey.isPresent());
+        assertEquals(ApiKeyTier.PREMIUM, signedApiKey.get().getTier());
+        assertEquals(now, signedApiKey.get().getIssuedAt());
+    }
+
+    @Test
+    public void verify_WILL_returnNothing_WHEN_apiKeyIsAltered() {
+
+        // Given
+        String apiKey = apiKeySigner.sign(ApiKeyTier.FREE, new Date().getTime());
+
+        // Run test and verify result
+        for (int i = ApiKeySigner.PREFIX.length(); i < apiKey.length(); i++) {
+            char altered = apiKey.charAt(i) == 'A' ? 'B' : 'A';
+            String alteredApiKey = apiKey.substring(0, i) + altered + apiKey.substring(i + 1);
+            assertFalse(alteredApiKey, apiKeySigner.verify(alteredApiKey).isPresent());
+        }
+    }
+
+    @Test
+    public void verify_WILL_returnNothing_WHEN_apiKeyIsSignedWithAnotherSecret() {
+
+        // Given
+        String apiKey = buildApiKeySigner("another-signing-secret-of-32-bytes").sign(ApiKeyTier.FREE, new Date().getTime());
+
+        // Run test
+        Optional<SignedApiKey> signedApiKey = apiKeySigner.verify(apiKey);
+
+        // Verify result
+        assertFalse(signedApiKey.isPresent());
+    }
+
+    @Test
+    public void verify_WILL_returnNothing_WHEN_apiKeyHasExpired() {
+
+        // Given
+        ReflectionTestUtils.setField(apiKeySigner, "maxAge", ONE_HOUR);
+        String apiKey = apiKeySigner.sign(ApiKeyTier.FREE, new Date().getTime() - 2 * ONE_HOUR);
+
+        // Run test
+        Optional<SignedApiKey> signedApiKey = apiKeySigner.verify(apiKey);
+
+        // Verify result
+        assertFalse(signedApiKey.isPresent());
+    }
+
+    @Test
+    public void verify_WILL_returnNothing_WHEN_apiKeyIsMalformed() {
+
+        // Run test and verify result
+        assertFalse(apiKeySigner.verify(null).isPresent());
+        assertFalse(apiKeySigner.verify("").isPresent());
+        assertFalse(apiKeySigner.verify("wk_").isPresent());
+        assertFalse(apiKeySigner.verify("wk_not*base64").isPresent());
+        assertFalse(apiKeySigner.verify("wk_c2hvcnQ").isPresent());
+        assertFalse(apiKeySigner.verify("dce03eae01aa390619209140981").isPresent());
+    }
+
+    @Test
+    public void checkAcceptable_WILL_rejectUnsignedApiKeys_WHEN_legacyKeysAreDisabled() throws WeatherApiException {
+
+        // Given
+        String apiKey = apiKeySigner.sign(ApiKeyTier.STANDARD, new Date().getTime());
+
+        // Run test and verify result
+        assertFalse(apiKeySigner.checkAcceptable("dce03eae01aa390619209140981").isPresent());
+        ReflectionTestUtils.setField(apiKeySigner, "legacyKeysEnabled", false);
+        WeatherApiException actual = assertThrows(WeatherApiException.class,
+                                                  () -> apiKeySigner.checkAcceptable("dce03eae01aa390619209140981"));
+        assertEquals(ERROR_API_KEY_NOT_VALID, actual.getMessage());
+        assertEquals(ApiKeyTier.STANDARD, apiKeySigner.checkAcceptable(apiKey).get().getTier());
+    }
+
+    @Test
+    public void checkAcceptable_WILL_throwWeatherApiException_WHEN_signedApiKeyIsForged() {
+
+        // Given
+        String apiKey = buildApiKeySigner("another-signing-secret-of-32-bytes").sign(ApiKeyTier.PREMIUM, new Date().getTime());
+
+        // Run test
+        WeatherApiException actual = assertThrows(WeatherApiException.class, () -> apiKeySigner.checkAcceptable(apiKey));
+
+        // Verify result
+        assertEquals(ERROR_API_KEY_NOT_VALID, actual.getMessage());
+    }
+
+    @Test
+    public void verify_WILL_acceptEveryApiKey_WHEN_apiKeysAreSignedConcurrently() throws Exception {
+
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // Run test
+        try {
+            for (int i = 0; i < 1000; i++) {
+                results.add(executor.submit(() -> {
+                    String apiKey = apiKeySigner.sign(ApiKeyTier.FREE, new Date().getTime());
+                    return apiKeySigner.verify(apiKey).isPresent();
+                }));
+            }
+
+            // Verify result
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ApiKeySigner buildApiKeySigner(String signingSecret) {
+        ApiKeySigner apiKeySigner = new ApiKeySigner();
+        ReflectionTestUtils.setField(apiKeySigner, "signingSecret", signingSecret);
+        ReflectionTestUtils.setField(apiKeySigner, "maxAge", 90 * 24 * ONE_HOUR);
+        ReflectionTestUtils.setField(apiKeySigner, "legacyKeysEnabled", true);
+        apiKeySigner.init();
+        return apiKeySigner;
+    }
+}
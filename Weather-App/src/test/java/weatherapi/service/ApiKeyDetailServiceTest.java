@@ -7,7 +7,8 @@ import org.mockito.Mock;
 import weatherapi.BaseTest;
 import weatherapi.entity.ApiKeyDetail;
 import weatherapi.repository.ApiKeyRepository;
-import weatherapi.utility.Utils;
+import weatherapi.security.ApiKeySigner;
+import weatherapi.security.ApiKeyTier;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +18,9 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
@@ -26,6 +30,8 @@ import static org.mockito.Mockito.when;
 public class ApiKeyDetailServiceTest extends BaseTest {
     @Mock
     private ApiKeyRepository apiKeyDaoMock;
+    @Mock
+    private ApiKeySigner apiKeySignerMock;
     @InjectMocks
     private ApiKeyDetailServiceImpl apiKeyDetailService;
 
@@ -33,7 +39,7 @@ public class ApiKeyDetailServiceTest extends BaseTest {
     public void save_WILL_saveApiKey_WHEN_noError() {
 
         // Give
-        ApiKeyDetail apiKeyDetail = Utils.buildApiKeyDetail();
+        ApiKeyDetail apiKeyDetail = buildUnsignedApiKeyDetail();
         when(apiKeyDaoMock.save(any(ApiKeyDetail.class))).thenReturn(apiKeyDetail);
 
         // Run test
@@ -49,7 +55,7 @@ public class ApiKeyDetailServiceTest extends BaseTest {
     public void findByApiKey_WILL_returnApiKey_WHEN_apiKeyMatched() {
 
         // Give
-        ApiKeyDetail expected = Utils.buildApiKeyDetail();
+        ApiKeyDetail expected = buildUnsignedApiKeyDetail();
         when(apiKeyDaoMock.findById(anyString())).thenReturn(Optional.of(expected));
 
         // Run test
@@ -91,4 +97,21 @@ public class ApiKeyDetailServiceTest extends BaseTest {
         // Verify
         verify(apiKeyDaoMock).deleteById(anyString());
     }
+
+    @Test
+    public void provision_WILL_saveSignedApiKeysOfTheTier_WHEN_countIsGiven() {
+
+        // Given
+        when(apiKeySignerMock.sign(eq(ApiKeyTier.STANDARD), anyLong())).thenReturn("wk_first", "wk_second");
+
+        // Run test
+        List<ApiKeyDetail> actual = apiKeyDetailService.provision(2, ApiKeyTier.STANDARD);
+
+        // Verify
+        assertEquals(2, actual.size());
+        assertEquals("wk_first", actual.get(0).getApiKey());
+        assertEquals("wk_second", actual.get(1).getApiKey());
+        assertTrue(actual.stream().allMatch(apiKeyDetail -> apiKeyDetail.getTier() == ApiKeyTier.STANDARD));
+        verify(apiKeyDaoMock, times(1)).insertAll(eq(actual), anyInt());
+    }
 }
@@ -3,12 +3,18 @@ package weatherapi.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.util.ReflectionTestUtils;
 import weatherapi.BaseTest;
 import weatherapi.entity.Country;
+import weatherapi.entity.CountryAlias;
+import weatherapi.repository.CountryAliasRepository;
 import weatherapi.repository.CountryRepository;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -16,7 +22,7 @@ import java.util.Optional;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Mockito.reset;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -25,20 +31,24 @@ public class CountryServiceTest extends BaseTest {
 
     @Mock
     private CountryRepository countryRepositoryMock;
+    @Mock
+    private CountryAliasRepository countryAliasRepositoryMock;
     @InjectMocks
     private CountryServiceImpl countryService;
+    @Autowired
+    private CountryService loadedCountryService;
 
     @BeforeEach
     private void setup() {
-        ReflectionTestUtils.setField(CountryServiceImpl.class, "countries", null);
+        when(countryRepositoryMock.findAll()).thenReturn(createCountryList());
+        when(countryAliasRepositoryMock.findAll()).thenReturn(List.of(createCountryAlias("alias-5", "country-code-5"),
+                                                                      createCountryAlias("country-name-1", "country-code-9")));
+        countryService.init();
     }
+
     @Test
     public void findCountryCode_WILL_returnCountryCode_WHEN_validCountryNameExists() {
 
-        // Given
-        List<Country> countries = createCountryList();
-        when(countryRepositoryMock.findAll()).thenReturn(countries);
-
         // Run test
         Optional<String> countryCode = countryService.findCountryCode("country-name-5");
 
@@ -46,15 +56,43 @@ public class CountryServiceTest extends BaseTest {
         assertNotNull(countryCode);
         assertTrue(countryCode.isPresent());
         assertEquals(countryCode.get(), "country-code-5");
-        verify(countryRepositoryMock, times(1)).findAll();
     }
 
     @Test
-    public void findCountryCode_WILL_returnNothing_WHEN_invalidCountryNameExists() {
+    public void findCountryCode_WILL_returnCountryCode_WHEN_countryNameHasDifferentCase() {
 
-        // Given
-        List<Country> countries = createCountryList();
-        when(countryRepositoryMock.findAll()).thenReturn(countries);
+        // Run test
+        Optional<String> countryCode = countryService.findCountryCode("COUNTRY-Name-5");
+
+        // Verify result
+        assertTrue(countryCode.isPresent());
+        assertEquals(countryCode.get(), "country-code-5");
+    }
+
+    @Test
+    public void findCountryCode_WILL_returnCountryCode_WHEN_isoCodeOrAliasIsGiven() {
+
+        // Run test
+        Optional<String> byCountryCode = countryService.findCountryCode("Country-Code-5");
+        Optional<String> byAlias = countryService.findCountryCode("ALIAS-5");
+
+        // Verify result
+        assertEquals(byCountryCode.get(), "country-code-5");
+        assertEquals(byAlias.get(), "country-code-5");
+    }
+
+    @Test
+    public void findCountryCode_WILL_preferCountryName_WHEN_aliasUsesTheSameName() {
+
+        // Run test
+        Optional<String> countryCode = countryService.findCountryCode("country-name-1");
+
+        // Verify result
+        assertEquals(countryCode.get(), "country-code-1");
+    }
+
+    @Test
+    public void findCountryCode_WILL_returnNothing_WHEN_invalidCountryNameExists() {
 
         // Run test
         Optional<String> countryCode = countryService.findCountryCode("abcde");
@@ -62,23 +100,82 @@ public class CountryServiceTest extends BaseTest {
         // Verify result
         assertNotNull(countryCode);
         assertTrue(countryCode.isEmpty());
+        assertTrue(countryService.findCountryCode("country-name-").isEmpty());
+        assertTrue(countryService.findCountryCode(null).isEmpty());
+    }
+
+    @Test
+    public void findCountryCode_WILL_notCallMethodFindAll_WHEN_indexIsBuilt() {
+
+        // Run test
+        countryService.findCountryCode("country-name-1");
+        countryService.findCountryCode("abcde");
+
+        // Verify result
         verify(countryRepositoryMock, times(1)).findAll();
+        verify(countryAliasRepositoryMock, times(1)).findAll();
     }
 
     @Test
-    public void findCountryCode_WILL_notCallMethodFindAll_WHEN_countryListAlreadyExists() {
+    public void reload_WILL_swapInNewCountries_WHEN_countriesHaveChanged() {
 
         // Given
-        List<Country> countries = createCountryList();
-        ReflectionTestUtils.setField(CountryServiceImpl.class, "countries", countries);
+        Country country = new Country();
+        country.setCountryName("new-country-name");
+        country.setCountryCode("new-country-code");
+        when(countryRepositoryMock.findAll()).thenReturn(List.of(country));
+        when(countryAliasRepositoryMock.findAll()).thenReturn(List.of());
 
         // Run test
-        Optional<String> countryCode = countryService.findCountryCode("abcde");
+        int entries = countryService.reload();
 
         // Verify result
-        assertNotNull(countryCode);
-        assertTrue(countryCode.isEmpty());
-        verify(countryRepositoryMock, times(0)).findAll();
+        assertEquals(2, entries);
+        assertEquals("new-country-code", countryService.findCountryCode("New-Country-Name").get());
+        assertTrue(countryService.findCountryCode("country-name-5").isEmpty());
+    }
+
+    @Test
+    public void reload_WILL_keepCurrentCountries_WHEN_noCountriesAreFound() {
+
+        // Given
+        when(countryRepositoryMock.findAll()).thenReturn(List.of());
+
+        // Run test
+        assertThrows(IllegalStateException.class, () -> countryService.reload());
+
+        // Verify result
+        assertEquals("country-code-5", countryService.findCountryCode("country-name-5").get());
+    }
+
+    @Test
+    public void reloadIfModified_WILL_readCountriesFromDataFile_WHEN_dataFileHasChanged(@TempDir Path tempDir) throws Exception {
+
+        // Given
+        Path dataFile = tempDir.resolve("countries.csv");
+        Files.writeString(dataFile, "ID,COUNTRY_NAME,COUNTRY_CODE\n1,Atlantis,AX\n");
+        ReflectionTestUtils.setField(countryService, "countryDataFile", dataFile.toString());
+
+        // Run test
+        countryService.reloadIfModified();
+
+        // Verify result
+        assertEquals("AX", countryService.findCountryCode("atlantis").get());
+        assertEquals("country-code-5", countryService.findCountryCode("alias-5").get());
+        assertTrue(countryService.findCountryCode("country-name-5").isEmpty());
+    }
+
+    @Test
+    public void findCountryCode_WILL_resolveIsoCodesAndAliases_WHEN_countriesAreLoadedFromDatabase() {
+
+        // Verify result
+        assertEquals("AU", loadedCountryService.findCountryCode("au").get());
+        assertEquals("AU", loadedCountryService.findCountryCode("Australia").get());
+        assertEquals("GB", loadedCountryService.findCountryCode("UK").get());
+        assertEquals("GB", loadedCountryService.findCountryCode("united kingdom").get());
+        assertEquals("US", loadedCountryService.findCountryCode("USA").get());
+        assertEquals("KR", loadedCountryService.findCountryCode("South Korea").get());
+        assertEquals("KR", loadedCountryService.findCountryCode("korea").get());
     }
 
     private static List<Country> createCountryList() {
@@ -93,4 +190,11 @@ public class CountryServiceTest extends BaseTest {
         }
         return countries;
     }
+
+    private static CountryAlias createCountryAlias(String alias, String countryCode) {
+        CountryAlias countryAlias = new CountryAlias();
+        countryAlias.setAlias(alias);
+        countryAlias.setCountryCode(countryCode);
+        return countryAlias;
+    }
 }
@@ -7,18 +7,15 @@ import weatherapi.BaseTest;
 import weatherapi.entity.WeatherReportDetail;
 import weatherapi.repository.WeatherReportRepository;
 
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.Optional;
 
-import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -34,56 +31,37 @@ public class WeatherReportDaoServiceTest extends BaseTest {
     private WeatherReportDaoServiceImpl weatherReportDaoService;
 
     @Test
-    public void saveOrUpdate_WILL_saveWeatherReportDetail_WHEN_noError() {
+    public void saveOrUpdate_WILL_upsertWeatherReportDetailByNormalisedKey_WHEN_noError() {
 
         // Give
-        String city = "new york";
-        String country = "united states";
-        WeatherReportDetail weatherReportDetail = buildWeatherReportDetail(city, country);
-        when(weatherReportDaoMock.save(any(WeatherReportDetail.class))).thenReturn(weatherReportDetail);
+        WeatherReportDetail weatherReportDetail = buildWeatherReportDetail(" New York ", "united states");
+        weatherReportDetail.setCountryCode("us");
 
         // Run test
         WeatherReportDetail actual = weatherReportDaoService.saveOrUpdate(weatherReportDetail);
 
         // Verify result
         assertNotNull(actual);
-        verify(weatherReportDaoMock, times(1)).save(any(WeatherReportDetail.class));
+        assertEquals("new york", actual.getCityKey());
+        assertEquals("US", actual.getCountryCode());
+        verify(weatherReportDaoMock, times(1)).upsert(eq("new york"), eq("US"), eq("New York"), eq("United States"),
+                                                      eq("This is a unit test"), anyLong());
+        verify(weatherReportDaoMock, times(0)).save(any(WeatherReportDetail.class));
     }
 
     @Test
-    public void findByCityAndCountry_WILL_returnWeatherReportDetails_WHEN_cityAndCountryNameMatched() {
+    public void findByCityAndCountryCode_WILL_returnWeatherReportDetail_WHEN_normalisedKeyMatched() {
 
         // Give
-
-        List<WeatherReportDetail> weatherReportDetailList = buildWeatherReportDetailList(1);
-        when(weatherReportDaoMock.findByAllIgnoreCaseCityAndCountry(anyString(), anyString())).thenReturn(weatherReportDetailList);
+        WeatherReportDetail weatherReportDetail = buildWeatherReportDetail("city-1", "country-1");
+        when(weatherReportDaoMock.findByCityKeyAndCountryCode("sydney", "AU")).thenReturn(Optional.of(weatherReportDetail));
 
         // Run test
-        List<WeatherReportDetail> actual = weatherReportDaoService.findByCityAndCountry("city-1", "country-1");
+        Optional<WeatherReportDetail> actual = weatherReportDaoService.findByCityAndCountryCode("Sydney", "au");
 
         // Verify result
-        assertNotNull(actual);
-        assertEquals(1, actual.size());
-        verify(weatherReportDaoMock, times(1)).findByAllIgnoreCaseCityAndCountry(anyString(), anyString());
-
-    }
-
-    @Test
-    public void deleteAllById_WILL_deleteAll_WHEN_noError() {
-
-        // Give
-        doNothing().when(weatherReportDaoMock).deleteAllById(any(List.class));
-        List<Long> ids = new ArrayList<>();
-        ids.add(122L);
-        ids.add(155L);
-        ids.add(12234L);
-
-        // Run test
-        weatherReportDaoService.deleteAllById(ids);
-
-        // Verify result
-        verify(weatherReportDaoMock, times(1)).deleteAllById(any(List.class));
-
+        assertTrue(actual.isPresent());
+        verify(weatherReportDaoMock, times(1)).findByCityKeyAndCountryCode("sydney", "AU");
     }
 
     @Test
@@ -99,17 +77,6 @@ public class WeatherReportDaoServiceTest extends BaseTest {
         verify(weatherReportDaoMock, times(1)).deleteById(any(Long.class));
     }
 
-    private List<WeatherReportDetail> buildWeatherReportDetailList(int count) {
-
-        WeatherReportDetail weatherReportDetail;
-        List<WeatherReportDetail> theList = new ArrayList<>();
-
-        for (int i = 0; i < count; i++) {
-            theList.add(buildWeatherReportDetail("city-" + i, "country-" + i));
-        }
-        return theList;
-    }
-
     private WeatherReportDetail buildWeatherReportDetail(String city, String country) {
         WeatherReportDetail weatherReportDetail = new WeatherReportDetail();
         weatherReportDetail.setCity(capitaliseString(city));
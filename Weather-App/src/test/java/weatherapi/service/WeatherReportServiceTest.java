@@ -0,0 +1,181 @@
+package weatherapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import weatherapi.BaseTest;
+import weatherapi.cache.CachedWeatherReport;
+import weatherapi.cache.WeatherReportCache;
+import weatherapi.entity.WeatherReportDetail;
+import weatherapi.factory.OpenWeatherServiceFactory;
+import weatherapi.metrics.WeatherReportMetrics;
+import weatherapi.metrics.WeatherReportMetrics.CacheOutcome;
+import weatherapi.model.WeatherReport;
+import weatherapi.scheduler.WeatherReportPopularityTracker;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WeatherReportServiceTest extends BaseTest {
+
+    @Mock
+    private WeatherReportDaoService weatherReportDaoServiceMock;
+    @Mock
+    private OpenWeatherServiceFactory openWeatherServiceFactoryMock;
+    @Mock
+    private WeatherReportCache weatherReportCacheMock;
+    @Mock
+    private WeatherReportPopularityTracker weatherReportPopularityTrackerMock;
+    @Mock
+    private WeatherReportMetrics weatherReportMetricsMock;
+    @InjectMocks
+    private WeatherReportServiceImpl weatherReportService;
+
+    @Test
+    public void getWeatherReport_WILL_returnCachedWeatherReport_WHEN_weatherReportIsCached() {
+
+        // Given
+        when(weatherReportCacheMock.get(anyString(), anyString()))
+                .thenReturn(Optional.of(new CachedWeatherReport("mist", new Date().getTime())));
+
+        // Run test
+        WeatherReport actual = weatherReportService.getWeatherReport("london", "united kingdom", "gb");
+
+        // Verify result
+        assertEquals("mist", actual.getDescription());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+        verify(weatherReportMetricsMock, times(1)).recordCacheOutcome(CacheOutcome.HIT);
+        verify(weatherReportPopularityTrackerMock, times(1)).recordRequest("london", "united kingdom", "gb");
+    }
+
+    @Test
+    public void getWeatherReport_WILL_notRecordRequest_WHEN_cityIsNotFound() {
+
+        // Given
+        when(weatherReportCacheMock.get(anyString(), anyString())).thenReturn(Optional.empty());
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        when(openWeatherServiceFactoryMock.getWeatherReport(anyString(), anyString()))
+                .thenThrow(new WebClientResponseException(404, "Not Found", null, null, null));
+
+        // Run test
+        assertThrows(WebClientResponseException.class,
+                     () -> weatherReportService.getWeatherReport("atlantis city", "australia", "au"));
+
+        // Verify result
+        verify(weatherReportPopularityTrackerMock, times(0)).recordRequest(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void getWeatherReportAsync_WILL_notRecordRequest_WHEN_cityIsNotFound() {
+
+        // Given
+        when(weatherReportCacheMock.get(anyString(), anyString())).thenReturn(Optional.empty());
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync(anyString(), anyString()))
+                .thenReturn(Mono.error(new WebClientResponseException(404, "Not Found", null, null, null)));
+
+        // Run test
+        assertThrows(WebClientResponseException.class,
+                     () -> weatherReportService.getWeatherReportAsync("atlantis city", "australia", "au").block());
+
+        // Verify result
+        verify(weatherReportPopularityTrackerMock, times(0)).recordRequest(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void getWeatherReport_WILL_callOpenWeatherServiceOnce_WHEN_concurrentRequestsMissTheCache() throws Exception {
+
+        // Given
+        when(weatherReportCacheMock.get(anyString(), anyString())).thenReturn(Optional.empty());
+        when(weatherReportDaoServiceMock.findByCityAndCountryCode(anyString(), anyString())).thenReturn(Optional.empty());
+        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(openWeatherServiceFactoryMock.getWeatherReport(anyString(), anyString())).thenAnswer(invocation -> {
+            release.await();
+            WeatherReport weatherReport = new WeatherReport();
+            weatherReport.setDescription("clear sky");
+            return weatherReport;
+        });
+
+        List<String> descriptions = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> descriptions.add(
+                    weatherReportService.getWeatherReport("sydney", "australia", "au").getDescription())));
+        }
+
+        // Run test
+        threads.forEach(Thread::start);
+        // Wait until the first request is calling the Open Weather Service and the others are waiting for it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        // Verify result
+        assertEquals(8, descriptions.size());
+        assertTrue(descriptions.stream().allMatch("clear sky"::equals));
+        verify(weatherReportDaoServiceMock, times(1)).findByCityAndCountryCode(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, times(1)).getWeatherReport(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
+        verify(weatherReportCacheMock, times(1)).put(eq("sydney"), eq("au"), eq("clear sky"), anyLong());
+        verify(weatherReportMetricsMock, times(8)).recordCacheOutcome(CacheOutcome.MISS);
+        verify(weatherReportPopularityTrackerMock, times(8)).recordRequest("sydney", "australia", "au");
+    }
+
+    @Test
+    public void getWeatherReport_WILL_waitForRefresh_WHEN_cacheMissArrivesDuringRefresh() throws Exception {
+
+        // Given
+        when(weatherReportCacheMock.get(anyString(), anyString())).thenReturn(Optional.empty());
+        when(weatherReportDaoServiceMock.saveOrUpdate(any(WeatherReportDetail.class))).thenReturn(new WeatherReportDetail());
+        Sinks.One<WeatherReport> upstream = Sinks.one();
+        when(openWeatherServiceFactoryMock.getWeatherReportAsync(anyString(), anyString())).thenReturn(upstream.asMono());
+
+        // Run test
+        CompletableFuture<WeatherReport> refresh = weatherReportService.refreshWeatherReportAsync("sydney", "australia", "au")
+                                                                       .toFuture();
+        CompletableFuture<WeatherReport> cacheMiss = CompletableFuture.supplyAsync(
+                () -> weatherReportService.getWeatherReport("sydney", "australia", "au"));
+        // Give the cache miss the time to join the refresh before the Open Weather Service answers
+        Thread.sleep(200);
+        WeatherReport weatherReport = new WeatherReport();
+        weatherReport.setDescription("clear sky");
+        upstream.tryEmitValue(weatherReport);
+
+        // Verify result
+        assertEquals("clear sky", refresh.get(5, TimeUnit.SECONDS).getDescription());
+        assertEquals("clear sky", cacheMiss.get(5, TimeUnit.SECONDS).getDescription());
+        verify(openWeatherServiceFactoryMock, times(1)).getWeatherReportAsync(anyString(), anyString());
+        verify(openWeatherServiceFactoryMock, times(0)).getWeatherReport(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(0)).findByCityAndCountryCode(anyString(), anyString());
+        verify(weatherReportDaoServiceMock, times(1)).saveOrUpdate(any(WeatherReportDetail.class));
+    }
+}
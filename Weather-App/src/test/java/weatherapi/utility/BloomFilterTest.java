@@ -0,0 +1,59 @@
+package weatherapi.utility;
+
+import org.junit.jupiter.api.Test;
+import weatherapi.BaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BloomFilterTest extends BaseTest {
+
+    @Test
+    public void mightContain_WILL_returnTrue_WHEN_valueWasPut() {
+
+        // Given
+        BloomFilter bloomFilter = BloomFilter.create(10_000, 0.01);
+        List<String> apiKeys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            apiKeys.add(buildUnsignedApiKeyDetail().getApiKey());
+        }
+
+        // Run test
+        apiKeys.forEach(bloomFilter::put);
+
+        // Verify result
+        assertTrue(apiKeys.stream().allMatch(bloomFilter::mightContain));
+    }
+
+    @Test
+    public void mightContain_WILL_returnFalseForMostValues_WHEN_valuesWereNotPut() {
+
+        // Given
+        BloomFilter bloomFilter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put(buildUnsignedApiKeyDetail().getApiKey());
+        }
+
+        // Run test
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain(buildUnsignedApiKeyDetail().getApiKey())) {
+                falsePositives++;
+            }
+        }
+
+        // Verify result, about 1,000 false positives are expected
+        assertTrue("False positives: " + falsePositives, falsePositives < 2_000);
+    }
+
+    @Test
+    public void create_WILL_throwIllegalArgumentException_WHEN_probabilityIsNotBetweenZeroAndOne() {
+
+        // Run test and verify result
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 1));
+    }
+}
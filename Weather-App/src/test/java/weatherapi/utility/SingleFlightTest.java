@@ -0,0 +1,110 @@
+package weatherapi.utility;
+
+import org.junit.jupiter.api.Test;
+import weatherapi.BaseTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest extends BaseTest {
+
+    @Test
+    public void execute_WILL_runLoaderOnce_WHEN_callersShareTheSameKey() throws Exception {
+
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Run test
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            awaitQuietly(release);
+            return "value";
+        }));
+        started.await();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other value";
+        }));
+        // Give the follower time to join the running loader before it completes
+        Thread.sleep(100);
+        release.countDown();
+
+        // Verify result
+        assertEquals("value", leader.get());
+        assertEquals("value", follower.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void execute_WILL_runLoaderAgain_WHEN_previousCallHasCompleted() {
+
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // Run test
+        singleFlight.execute("key", calls::incrementAndGet);
+        int actual = singleFlight.execute("key", calls::incrementAndGet);
+
+        // Verify result
+        assertEquals(2, actual);
+    }
+
+    @Test
+    public void execute_WILL_throwLoaderException_WHEN_loaderFails() {
+
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        // Run test
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("upstream failed");
+        }));
+
+        // Verify result
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void executeAsync_WILL_returnTheSameFuture_WHEN_loaderIsStillRunning() throws Exception {
+
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // Run test
+        CompletableFuture<String> first = singleFlight.executeAsync("key", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = singleFlight.executeAsync("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other value");
+        });
+        upstream.complete("value");
+
+        // Verify result
+        assertEquals("value", first.get());
+        assertEquals("value", second.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}